@@ -0,0 +1,188 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.bench;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import org.japo.java.controllers.DataAccessControllerCSV;
+import org.japo.java.controllers.DataAccessControllerGZ;
+import org.japo.java.controllers.DataAccessControllerJSON;
+import org.japo.java.controllers.DataAccessControllerNDJSON;
+import org.japo.java.controllers.DataAccessControllerPRP;
+import org.japo.java.controllers.DataAccessControllerSBIN;
+import org.japo.java.controllers.DataAccessControllerSXML;
+import org.japo.java.controllers.DataAccessControllerTBIN;
+import org.japo.java.controllers.DataAccessControllerXML;
+import org.japo.java.interfaces.IDataAccessController;
+import org.japo.java.interfaces.IDataAccessStreamController;
+import org.japo.java.libraries.TicketCodec;
+import org.japo.java.models.Model;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class BenchmarkFormatos {
+
+    // Valores por defecto
+    public static final String DEF_LOTES = "1,1000";
+    public static final int DEF_DATASET = 10000;
+    public static final long DEF_SEMILLA = 20171222L;
+
+    // Iteraciones medidas por modo + Tickets de calentamiento
+    public static final int DEF_ITERACIONES = 30;
+    public static final int CALENTAMIENTO_TICKETS = 1000;
+
+    // Formatos medidos
+    private static final Map<String, IDataAccessController> FORMATOS = new LinkedHashMap<>();
+
+    static {
+        FORMATOS.put("PRP", new DataAccessControllerPRP());
+        FORMATOS.put("CSV", new DataAccessControllerCSV());
+        FORMATOS.put("JSON", new DataAccessControllerJSON());
+        FORMATOS.put("NDJSON", new DataAccessControllerNDJSON());
+        FORMATOS.put("SBIN", new DataAccessControllerSBIN());
+        FORMATOS.put("SXML", new DataAccessControllerSXML());
+        FORMATOS.put("TBIN", new DataAccessControllerTBIN());
+        FORMATOS.put("XML", new DataAccessControllerXML());
+        FORMATOS.put("CSV.GZ", new DataAccessControllerGZ(new DataAccessControllerCSV()));
+        FORMATOS.put("TBIN.GZ", new DataAccessControllerGZ(new DataAccessControllerTBIN()));
+    }
+
+    // Uso: BenchmarkFormatos [lotes] [formatos] [iteraciones]
+    //      lotes       - Tamaños de lote separados por comas (1,1000,1000000)
+    //      formatos    - Formatos separados por comas (PRP,CSV,JSON,NDJSON,SBIN,SXML,TBIN,XML,CSV.GZ,TBIN.GZ)
+    //      iteraciones - Repeticiones medidas de cada lote - Base de los percentiles
+    public static void main(String[] args) throws Exception {
+        // Parámetros
+        String[] lotes = (args.length > 0 ? args[0] : DEF_LOTES).split(",");
+        String[] formatos = args.length > 1
+                ? args[1].split(",")
+                : FORMATOS.keySet().toArray(new String[0]);
+        int iteraciones = args.length > 2 ? Integer.parseInt(args[2]) : DEF_ITERACIONES;
+
+        // Dataset generado
+        Model[] dataset = generarDataset(DEF_DATASET, DEF_SEMILLA);
+
+        // Directorio de trabajo
+        Path dir = Files.createTempDirectory("bench-lnac");
+
+        // Cabecera
+        System.out.printf("%-6s %-9s %9s %12s %10s %10s %10s %10s %10s%n",
+                "FORMATO", "OPERACION", "LOTE", "OPS/S",
+                "P50 us", "P99 us", "P99.9 us", "B/OP", "MB/S");
+
+        // Mediciones
+        Medidor medidor = new Medidor();
+        for (String nombre : formatos) {
+            IDataAccessController dac = FORMATOS.get(nombre.trim().toUpperCase());
+            if (dac == null) {
+                System.out.println("ERROR: Formato desconocido " + nombre);
+                continue;
+            }
+            String fichero = dir.resolve("bench." + nombre.toLowerCase()).toString();
+            for (String txtLote : lotes) {
+                int lote = Integer.parseInt(txtLote.trim());
+                int calentamiento = obtenerCalentamiento(lote);
+
+                // Exportación
+                medidor.medir(i -> dac.exportarModelo(dataset[i % dataset.length], fichero),
+                        lote, calentamiento, iteraciones);
+                mostrar(nombre, "exportar", lote, medidor);
+
+                // Importación
+                Model model = new Model();
+                medidor.medir(i -> dac.importarModelo(model, fichero),
+                        lote, calentamiento, iteraciones);
+                mostrar(nombre, "importar", lote, medidor);
+
+                // Exportación / Importación en flujo - Una operación por lote e iteración
+                if (dac instanceof IDataAccessStreamController && lote > 1) {
+                    IDataAccessStreamController flujo = (IDataAccessStreamController) dac;
+                    long[] tickets = generarTickets(lote, DEF_SEMILLA);
+                    medidor.medir(i -> flujo.exportarTickets(Arrays.stream(tickets).iterator(), fichero),
+                            1, calentamiento, iteraciones);
+                    mostrarFlujo(nombre, "exp-flujo", lote, medidor);
+                    medidor.medir(i -> flujo.importarTickets(fichero, t -> {
+                    }), 1, calentamiento, iteraciones);
+                    mostrarFlujo(nombre, "imp-flujo", lote, medidor);
+                }
+            }
+            new File(fichero).delete();
+        }
+
+        // Limpieza
+        Files.deleteIfExists(dir);
+    }
+
+    // Iteraciones de calentamiento - Al menos CALENTAMIENTO_TICKETS tickets
+    private static int obtenerCalentamiento(int lote) {
+        return Math.max(1, CALENTAMIENTO_TICKETS / lote);
+    }
+
+    // Dataset aleatorio reproducible
+    public static Model[] generarDataset(int num, long semilla) {
+        SplittableRandom rnd = new SplittableRandom(semilla);
+        Model[] dataset = new Model[num];
+        for (int i = 0; i < num; i++) {
+            dataset[i] = TicketCodec.desempaquetar(generarTicket(rnd));
+        }
+        return dataset;
+    }
+
+    // Tickets aleatorios reproducibles
+    public static long[] generarTickets(int num, long semilla) {
+        SplittableRandom rnd = new SplittableRandom(semilla);
+        long[] tickets = new long[num];
+        for (int i = 0; i < num; i++) {
+            tickets[i] = generarTicket(rnd);
+        }
+        return tickets;
+    }
+
+    // Ticket aleatorio - Sorteos de 2017
+    public static long generarTicket(SplittableRandom rnd) {
+        return TicketCodec.empaquetar(
+                rnd.nextInt(TicketCodec.MAX_NUMERO + 1),
+                rnd.nextInt(TicketCodec.MAX_SERIE + 1),
+                rnd.nextInt(TicketCodec.MAX_FRACCION + 1),
+                17167 + rnd.nextInt(365),
+                rnd.nextBoolean() ? 3 : 20);
+    }
+
+    // Línea de resultados
+    private static void mostrar(String formato, String operacion, int lote, Medidor medidor) {
+        System.out.printf("%-6s %-9s %9d %12.0f %10.1f %10.1f %10.1f %10.0f %10.1f%n",
+                formato, operacion, lote, medidor.obtenerOpsSegundo(),
+                medidor.obtenerPercentil(0.50), medidor.obtenerPercentil(0.99),
+                medidor.obtenerPercentil(0.999), medidor.obtenerBytesOperacion(),
+                medidor.obtenerMBSegundo());
+    }
+
+    // Línea de resultados - Una operación por lote completo (Latencia del lote)
+    private static void mostrarFlujo(String formato, String operacion, int lote, Medidor medidor) {
+        System.out.printf("%-6s %-9s %9d %12.0f %10.1f %10.1f %10.1f %10.0f %10.1f%n",
+                formato, operacion, lote, medidor.obtenerOpsSegundo() * lote,
+                medidor.obtenerPercentil(0.50), medidor.obtenerPercentil(0.99),
+                medidor.obtenerPercentil(0.999), medidor.obtenerBytesOperacion() / lote,
+                medidor.obtenerMBSegundo());
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.bench;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class Medidor {
+
+    // Operación medida
+    public interface Operacion {
+
+        void ejecutar(int i) throws Exception;
+    }
+
+    // Bean de hilos - Contabilidad de memoria asignada
+    private static final ThreadMXBean HILOS = ManagementFactory.getThreadMXBean();
+
+    // Latencia media por operación de cada iteración medida (ns)
+    private long[] latencias = new long[0];
+
+    // Resultados de la última medición
+    private int iteraciones;
+    private long operaciones;
+    private long nanos;
+    private long bytes;
+
+    // Calentamiento + Iteraciones medidas de un lote de operaciones
+    // Los percentiles se toman entre iteraciones - Con lote 1, latencia de cada operación
+    public void medir(Operacion op, int lote, int calentamiento, int iteraciones) throws Exception {
+        // Calentamiento - Iteraciones completas sin medir
+        int k = 0;
+        for (int n = 0; n < calentamiento; n++) {
+            for (int i = 0; i < lote; i++) {
+                op.ejecutar(k++);
+            }
+        }
+
+        // Latencias
+        if (latencias.length < iteraciones) {
+            latencias = new long[iteraciones];
+        }
+
+        // Medición - Memoria de todos los hilos vivos
+        long[] hilosIni = HILOS.getAllThreadIds();
+        long[] bytesIni = obtenerBytesAsignados(hilosIni);
+        long ini = System.nanoTime();
+        for (int n = 0; n < iteraciones; n++) {
+            long t0 = System.nanoTime();
+            for (int i = 0; i < lote; i++) {
+                op.ejecutar(k++);
+            }
+            latencias[n] = (System.nanoTime() - t0) / lote;
+        }
+        nanos = System.nanoTime() - ini;
+        bytes = sumarBytesAsignados(hilosIni, bytesIni);
+        this.iteraciones = iteraciones;
+        operaciones = (long) lote * iteraciones;
+
+        // Latencias ordenadas
+        Arrays.sort(latencias, 0, iteraciones);
+    }
+
+    // Operaciones por segundo
+    public double obtenerOpsSegundo() {
+        return nanos > 0 ? operaciones * 1e9 / nanos : 0;
+    }
+
+    // Percentil de latencia entre iteraciones (µs)
+    public double obtenerPercentil(double p) {
+        int i = (int) Math.min(iteraciones - 1, Math.ceil(p * iteraciones) - 1);
+        return latencias[Math.max(0, i)] / 1e3;
+    }
+
+    // Memoria asignada por operación (bytes) - -1 si no disponible
+    public double obtenerBytesOperacion() {
+        return bytes < 0 ? -1 : (double) bytes / operaciones;
+    }
+
+    // Memoria asignada por segundo (MB/s) - -1 si no disponible
+    public double obtenerMBSegundo() {
+        return bytes < 0 ? -1 : bytes / 1048576.0 * 1e9 / nanos;
+    }
+
+    // Memoria asignada por cada hilo (-1 hilo terminado) - null si no disponible
+    private static long[] obtenerBytesAsignados(long[] hilos) {
+        try {
+            if (HILOS instanceof com.sun.management.ThreadMXBean) {
+                return ((com.sun.management.ThreadMXBean) HILOS).getThreadAllocatedBytes(hilos);
+            }
+        } catch (UnsupportedOperationException e) {
+            System.out.println("ERROR: Contabilidad de memoria no disponible");
+        }
+        return null;
+    }
+
+    // Memoria asignada por todos los hilos desde la instantánea inicial - -1 si no disponible
+    // Los hilos que terminan antes de la instantánea final no se contabilizan
+    private static long sumarBytesAsignados(long[] hilosIni, long[] bytesIni) {
+        // Instantánea final
+        long[] hilosFin = HILOS.getAllThreadIds();
+        long[] bytesFin = bytesIni == null ? null : obtenerBytesAsignados(hilosFin);
+        if (bytesFin == null) {
+            return -1;
+        }
+
+        // Diferencia por hilo - Hilos nuevos desde cero
+        long total = 0;
+        for (int i = 0; i < hilosFin.length; i++) {
+            if (bytesFin[i] < 0) {
+                continue;
+            }
+            long base = 0;
+            for (int j = 0; j < hilosIni.length; j++) {
+                if (hilosIni[j] == hilosFin[i]) {
+                    base = Math.max(0, bytesIni[j]);
+                    break;
+                }
+            }
+            total += bytesFin[i] - base;
+        }
+
+        // Devolver Total
+        return total;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.components;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.Window;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.Timer;
+import javax.swing.WindowConstants;
+import org.japo.java.interfaces.IProgreso;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class DialogoProgreso extends JDialog implements IProgreso {
+
+    // Periodo de refresco (ms) - Actualizaciones agrupadas en el EDT
+    public static final int PERIODO_REFRESCO = 100;
+
+    // Escala de presentación
+    public static final long ESCALA_MB = 1 << 20;
+
+    // Controles
+    private final JProgressBar barra = new JProgressBar(0, 1000);
+    private final JLabel lblEstado = new JLabel(" ");
+    private final JButton btnCancelar = new JButton("Cancelar");
+    private final Timer refresco;
+
+    // Unidad de medida
+    private final String unidad;
+    private final long escala;
+
+    // Último progreso notificado - Escrito desde cualquier hilo
+    private volatile long procesados;
+    private volatile long total = -1;
+    private final long ini = System.nanoTime();
+
+    // Constructor Parametrizado
+    public DialogoProgreso(Window propietario, String titulo,
+            String unidad, long escala, Runnable cancelar) {
+        super(propietario, titulo, ModalityType.APPLICATION_MODAL);
+        this.unidad = unidad;
+        this.escala = escala;
+
+        // Controles
+        barra.setStringPainted(true);
+        lblEstado.setBorder(BorderFactory.createEmptyBorder(8, 0, 0, 0));
+        btnCancelar.addActionListener(evt -> {
+            btnCancelar.setEnabled(false);
+            lblEstado.setText("Cancelando...");
+            cancelar.run();
+        });
+
+        // Composición
+        JPanel pnlCentro = new JPanel(new BorderLayout());
+        pnlCentro.setBorder(BorderFactory.createEmptyBorder(12, 12, 4, 12));
+        pnlCentro.add(barra, BorderLayout.NORTH);
+        pnlCentro.add(lblEstado, BorderLayout.CENTER);
+        JPanel pnlBotones = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        pnlBotones.add(btnCancelar);
+        add(pnlCentro, BorderLayout.CENTER);
+        add(pnlBotones, BorderLayout.SOUTH);
+
+        // Ventana - El cierre equivale a cancelar
+        setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent evt) {
+                btnCancelar.doClick();
+            }
+        });
+        setSize(460, 140);
+        setLocationRelativeTo(propietario);
+
+        // Refresco periódico
+        refresco = new Timer(PERIODO_REFRESCO, evt -> refrescar());
+        refresco.start();
+    }
+
+    // Progreso desde el hilo de trabajo - Sin acceso a Swing
+    @Override
+    public void actualizar(long procesados, long total) {
+        this.procesados = procesados;
+        this.total = total;
+    }
+
+    // Fin de la operación
+    public void cerrar() {
+        refresco.stop();
+        dispose();
+    }
+
+    // Progreso > Controles (EDT)
+    private void refrescar() {
+        // Instantánea
+        long hechos = procesados;
+        long previstos = total;
+        double segundos = (System.nanoTime() - ini) / 1e9;
+        double ritmo = segundos > 0 ? hechos / segundos : 0;
+
+        // Barra - Indeterminada sin total conocido
+        barra.setIndeterminate(previstos <= 0);
+        if (previstos > 0) {
+            barra.setValue((int) (hechos * 1000 / Math.max(previstos, 1)));
+        }
+
+        // Estado - Ritmo y tiempo restante
+        if (btnCancelar.isEnabled()) {
+            StringBuilder txt = new StringBuilder();
+            txt.append(String.format("%,.1f %s - %,.1f %s/s",
+                    (double) hechos / escala, unidad, ritmo / escala, unidad));
+            if (previstos > 0 && ritmo > 0) {
+                long restantes = (long) ((previstos - hechos) / ritmo);
+                txt.append(String.format(" - Quedan %d:%02d", restantes / 60, restantes % 60));
+            }
+            lblEstado.setText(txt.toString());
+        }
+    }
+}
@@ -17,15 +17,34 @@ package org.japo.java.controllers;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.WindowEvent;
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.PrimitiveIterator;
 import java.util.Properties;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
+import javax.swing.SwingWorker;
+import org.japo.java.components.DialogoProgreso;
 import org.japo.java.models.Model;
 import org.japo.java.views.View;
 import org.japo.java.libraries.UtilesApp;
 import org.japo.java.libraries.UtilesSwing;
 import org.japo.java.interfaces.IDataAccessController;
+import org.japo.java.interfaces.IDataAccessStreamController;
+import org.japo.java.interfaces.IVerificable;
+import org.japo.java.libraries.EntradaProgreso;
+import org.japo.java.libraries.TicketCodec;
+import org.japo.java.libraries.UtilesFormato;
+import org.japo.java.models.InformeVerificacion;
+import org.japo.java.models.TicketStore;
 import org.japo.java.libraries.UtilesValidacion;
 
 /**
@@ -40,12 +59,21 @@ public class Controller {
     // Fichero Propiedades Aplicación
     public static final String FICHERO_PRP = "app.properties";
 
+    // Tickets entre vistas previas (Importación) y avisos de progreso (Exportación)
+    public static final int TICKETS_VISTA_PREVIA = 1 << 16;
+    public static final int TICKETS_PROGRESO = 1 << 12;
+
     // Referencias
     private final Model model;
     private final View view;
     private final Properties prpApp;
+    private final RegistroFormatos formatos;
     private final IDataAccessController dac;
 
+    // Tickets importados - Solo con más de uno (Vista sobre filaActual)
+    private TicketStore inventario;
+    private int filaActual;
+
     // Constructor Parametrizado
     public Controller(Model model, View view) {
         // Memorizar Referencias
@@ -55,42 +83,32 @@ public class Controller {
         // Cargar Propiedades Aplicación
         this.prpApp = UtilesApp.cargarPropiedades(FICHERO_PRP);
 
-        // *** Controlador de Persistencia ***
-        this.dac = new DataAccessControllerPRP();
+        // *** Controladores de Persistencia ***
+        this.formatos = RegistroFormatos.getInstancia();
+        this.dac = obtenerControladorPredeterminado(formatos);
     }
 
-    // Persistencia > Modelo > Vista
+    // Persistencia > Modelo > Vista - Fuera del EDT
     public void procesarImportacion(ActionEvent evt) {
-        try {
-            // Fichero de Datos
-            String fichero = prpApp.getProperty(PRP_FICHERO_DATOS);
-
-            // Selección Fichero
-            JFileChooser selector = new JFileChooser(fichero);
-
-            // Análisis Selección Fichero
-            if (selector.showOpenDialog(view) == JFileChooser.APPROVE_OPTION) {
-                // Fichero Seleccionado
-                File f = selector.getSelectedFile();
+        // Fichero de Datos
+        String fichero = prpApp.getProperty(PRP_FICHERO_DATOS);
 
-                // Persistencia > Modelo
-                dac.importarModelo(model, f.getAbsolutePath());
+        // Selección Fichero
+        JFileChooser selector = new JFileChooser(fichero);
 
-                // Modelo > Vista
-                sincronizarModeloVista(model, view);
+        // Análisis Selección Fichero
+        if (selector.showOpenDialog(view) == JFileChooser.APPROVE_OPTION) {
+            // Fichero Seleccionado
+            File f = selector.getSelectedFile();
 
-                // Mensaje - Importación OK
-                String msg = "Datos importados correctamente";
-                JOptionPane.showMessageDialog(view, msg);
-            }
-        } catch (Exception e) {
-            // Mensaje - Importación NO
-            String msg = "Error al importar los datos";
-            JOptionPane.showMessageDialog(view, msg);
+            // Importación en segundo plano - Diálogo modal hasta su fin
+            TareaImportacion tarea = new TareaImportacion(f.getAbsolutePath());
+            tarea.execute();
+            tarea.dialogo.setVisible(true);
         }
     }
 
-    // Vista > Modelo > Persistencia
+    // Vista > Modelo > Persistencia - Fuera del EDT
     public void procesarExportacion(ActionEvent evt) {
         // Validar Datos Vista
         if (validarControlesSubjetivos(view)) {
@@ -98,6 +116,12 @@ public class Controller {
                 // Vista > Modelo
                 sincronizarVistaModelo(view, model);
 
+                // Modelo cambiado > Ticket actual del inventario
+                if (inventario != null && model.isModificado()) {
+                    inventario.actualizar(filaActual, TicketCodec.empaquetar(model));
+                    model.limpiarModificado();
+                }
+
                 // Fichero de Datos
                 String fichero = prpApp.getProperty(PRP_FICHERO_DATOS);
 
@@ -109,12 +133,20 @@ public class Controller {
                     // Fichero Seleccionado
                     File f = selector.getSelectedFile();
 
-                    // Modelo > Persistencia
-                    dac.exportarModelo(model, f.getAbsolutePath());
+                    // Cambios desde la última importación / exportación
+                    boolean delta = DeltaTickets.EXTENSION.equals(
+                            UtilesFormato.obtenerExtension(f.getAbsolutePath()));
+                    if (delta && inventario == null) {
+                        JOptionPane.showMessageDialog(view,
+                                "La exportación de cambios requiere un inventario importado");
+                        return;
+                    }
 
-                    // Mensaje - Exportación OK
-                    String msg = "Datos exportados correctamente";
-                    JOptionPane.showMessageDialog(view, msg);
+                    // Exportación en segundo plano - Formato por extensión
+                    TareaExportacion tarea = new TareaExportacion(f.getAbsolutePath(),
+                            delta ? null : formatos.obtenerPorExtension(f.getAbsolutePath(), dac));
+                    tarea.execute();
+                    tarea.dialogo.setVisible(true);
                 }
             } catch (Exception e) {
                 // Mensaje - Exportación NO
@@ -127,6 +159,208 @@ public class Controller {
         }
     }
 
+    // Importación en segundo plano - Vista previa agrupada en el EDT
+    private class TareaImportacion extends SwingWorker<TicketStore, Model> {
+
+        private final String fichero;
+        private final DialogoProgreso dialogo;
+
+        TareaImportacion(String fichero) {
+            this.fichero = fichero;
+            this.dialogo = new DialogoProgreso(view, "Importación", "MB",
+                    DialogoProgreso.ESCALA_MB, () -> cancel(false));
+        }
+
+        @Override
+        protected TicketStore doInBackground() throws Exception {
+            // Formato detectado
+            IDataAccessController dacFichero = formatos.detectar(fichero);
+
+            // Sumas por bloque - Fichero corrupto rechazado antes de importar
+            if (dacFichero instanceof IVerificable) {
+                InformeVerificacion informe = ((IVerificable) dacFichero).verificar(
+                        fichero, ForkJoinPool.commonPool(), dialogo);
+                if (!informe.isValido()) {
+                    throw new Exception(informe.obtenerPrimerError());
+                }
+            }
+
+            // Persistencia > Tickets
+            TicketStore store = new TicketStore();
+            if (dacFichero instanceof IDataAccessStreamController) {
+                // Flujo con progreso y cancelación
+                long tam = Files.size(Paths.get(fichero));
+                try (InputStream entrada = new BufferedInputStream(
+                        new EntradaProgreso(new FileInputStream(fichero), tam, dialogo, this::isCancelled),
+                        IDataAccessStreamController.TAM_BUFFER)) {
+                    ((IDataAccessStreamController) dacFichero).importarTickets(entrada, ticket -> {
+                        if (store.insertar(ticket) % TICKETS_VISTA_PREVIA == 0) {
+                            publish(TicketCodec.desempaquetar(ticket));
+                        }
+                    });
+                }
+            } else {
+                // Modelo único
+                Model importado = new Model();
+                dacFichero.importarModelo(importado, fichero);
+                store.insertar(TicketCodec.empaquetar(importado));
+            }
+
+            // Fichero sin tickets
+            if (store.getFilas() == 0) {
+                throw new Exception("Datos corruptos");
+            }
+
+            // Devolver Tickets
+            return store;
+        }
+
+        @Override
+        protected void process(List<Model> modelos) {
+            // Solo el último del lote
+            sincronizarModeloVista(modelos.get(modelos.size() - 1), view);
+        }
+
+        @Override
+        protected void done() {
+            dialogo.cerrar();
+            String msg;
+            try {
+                // Tickets > Inventario (Varios tickets) + Modelo
+                TicketStore store = get();
+                inventario = store.getFilas() > 1 ? store : null;
+                filaActual = 0;
+                TicketCodec.desempaquetar(store.obtener(filaActual), model);
+
+                // Estado importado como confirmado
+                store.limpiarModificadas();
+                model.limpiarModificado();
+
+                // Modelo > Vista
+                sincronizarModeloVista(model, view);
+
+                // Mensaje - Importación OK
+                msg = store.getFilas() > 1
+                        ? String.format("Datos importados correctamente - %,d tickets", store.getFilas())
+                        : "Datos importados correctamente";
+            } catch (CancellationException e) {
+                // Mensaje - Importación cancelada (Vista restaurada)
+                sincronizarModeloVista(model, view);
+                msg = "Importación cancelada";
+            } catch (InterruptedException | ExecutionException e) {
+                // Mensaje - Importación NO (Vista restaurada)
+                sincronizarModeloVista(model, view);
+                msg = "Error al importar los datos";
+            }
+            JOptionPane.showMessageDialog(view, msg);
+        }
+    }
+
+    // Exportación en segundo plano - Completa / Cambios (dacFichero == null)
+    private class TareaExportacion extends SwingWorker<Long, Void> {
+
+        private final String fichero;
+        private final IDataAccessController dacFichero;
+        private final DialogoProgreso dialogo;
+
+        // Instantánea tomada en el EDT
+        private final Model copia;
+        private final TicketStore tickets;
+        private final int filas;
+
+        TareaExportacion(String fichero, IDataAccessController dacFichero) {
+            this.fichero = fichero;
+            this.dacFichero = dacFichero;
+            this.dialogo = new DialogoProgreso(view, "Exportación", "tickets", 1, () -> cancel(false));
+            this.copia = new Model(model.getNumero(), model.getSerie(),
+                    model.getFraccion(), model.getFecha(), model.getPrecio());
+            this.tickets = inventario;
+            this.filas = inventario != null ? inventario.getFilas() : 1;
+        }
+
+        @Override
+        protected Long doInBackground() throws Exception {
+            // Filas modificadas del inventario
+            if (dacFichero == null) {
+                return DeltaTickets.exportarDelta(tickets, fichero);
+            }
+
+            // Modelo único
+            if (tickets == null || !(dacFichero instanceof IDataAccessStreamController)) {
+                dacFichero.exportarModelo(copia, fichero);
+                return 1L;
+            }
+
+            // Inventario con progreso y cancelación
+            PrimitiveIterator.OfLong origen = tickets.iterador(0, filas);
+            PrimitiveIterator.OfLong seguimiento = new PrimitiveIterator.OfLong() {
+                private long num;
+
+                @Override
+                public boolean hasNext() {
+                    if (isCancelled()) {
+                        throw new CancellationException();
+                    }
+                    return origen.hasNext();
+                }
+
+                @Override
+                public long nextLong() {
+                    if (++num % TICKETS_PROGRESO == 0 || num == filas) {
+                        dialogo.actualizar(num, filas);
+                    }
+                    return origen.nextLong();
+                }
+            };
+            try {
+                return ((IDataAccessStreamController) dacFichero).exportarTickets(seguimiento, fichero);
+            } catch (CancellationException e) {
+                // Fichero incompleto
+                Files.deleteIfExists(Paths.get(fichero));
+                throw e;
+            }
+        }
+
+        @Override
+        protected void done() {
+            dialogo.cerrar();
+            String msg;
+            try {
+                // Mensaje - Exportación OK
+                long num = get();
+                msg = dacFichero == null
+                        ? String.format("Cambios exportados correctamente - %,d tickets", num)
+                        : num > 1
+                        ? String.format("Datos exportados correctamente - %,d tickets", num)
+                        : "Datos exportados correctamente";
+
+                // Estado exportado como confirmado - Solo si se escribió el inventario
+                boolean inventarioEscrito = dacFichero == null
+                        || dacFichero instanceof IDataAccessStreamController;
+                if (tickets != null && inventarioEscrito) {
+                    tickets.limpiarModificadas();
+                }
+                model.limpiarModificado();
+            } catch (CancellationException e) {
+                // Mensaje - Exportación cancelada
+                msg = "Exportación cancelada";
+            } catch (InterruptedException | ExecutionException e) {
+                // Mensaje - Exportación NO
+                msg = "Error al exportar los datos";
+            }
+            JOptionPane.showMessageDialog(view, msg);
+        }
+    }
+
+    // Formato predeterminado - PRP si está registrado
+    private static IDataAccessController obtenerControladorPredeterminado(RegistroFormatos formatos) {
+        try {
+            return formatos.obtener("PRP");
+        } catch (Exception e) {
+            return new DataAccessControllerPRP();
+        }
+    }
+
 // Modelo > Vista 
     public void sincronizarModeloVista(Model model, View view) {
         view.txfNumero.setText(model.getNumero());
@@ -15,15 +15,32 @@
  */
 package org.japo.java.controllers;
 
+import java.io.BufferedWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
 import org.japo.java.models.Model;
-import org.japo.java.interfaces.IDataAccessController;
+import org.japo.java.interfaces.IDataAccessStreamController;
+import org.japo.java.interfaces.IFormatoFichero;
+import org.japo.java.interfaces.ILectorRango;
+import org.japo.java.libraries.LectorCSV;
+import org.japo.java.libraries.TicketCodec;
 import org.japo.java.libraries.UtilesCSV;
+import org.japo.java.libraries.UtilesFormato;
 
 /**
  *
  * @author José A. Pacheco Ondoño - joanpaon@gmail.com
  */
-public class DataAccessControllerCSV implements IDataAccessController {
+public class DataAccessControllerCSV implements IDataAccessStreamController, ILectorRango, IFormatoFichero {
 
     // Fichero CSV > Modelo
     @Override
@@ -43,18 +60,131 @@ public class DataAccessControllerCSV implements IDataAccessController {
 
         // Modelo > Lista Items
         convertirModeloArray(model, items);
-        
+
         // Lista Items > Fichero CSV
         UtilesCSV.exportarItemsCSV(items, fichero);
     }
     
     // Modelo > Lista Items
     public void convertirModeloArray(Model model, String[] items) {
-
+        items[Model.POS_NUMERO] = model.getNumero();
+        items[Model.POS_SERIE] = model.getSerie();
+        items[Model.POS_FRACCION] = model.getFraccion();
+        items[Model.POS_FECHA] = model.getFecha();
+        items[Model.POS_PRECIO] = model.getPrecio();
     }
 
     // Lista Items > Modelo
-    public void convertirArrayModelo(String[] items, Model model) {
+    public void convertirArrayModelo(String[] items, Model model) throws Exception {
+        TicketCodec.desempaquetar(convertirArrayTicket(items), model);
+    }
+
+    // Flujo CSV > Tickets - Una línea por ticket
+    @Override
+    public long importarTickets(InputStream entrada, LongConsumer consumidor) throws Exception {
+        return importarTickets(new LectorCSV(Channels.newChannel(entrada)), consumidor);
+    }
+
+    // Fichero CSV > Tickets - Lectura directa del canal
+    @Override
+    public long importarTickets(String fichero, LongConsumer consumidor) throws Exception {
+        try (FileChannel canal = FileChannel.open(Paths.get(fichero), StandardOpenOption.READ)) {
+            return importarTickets(new LectorCSV(canal, 0, canal.size()), consumidor);
+        }
+    }
+
+    // Rango de fichero CSV > Tickets
+    @Override
+    public long importarRango(FileChannel canal, long ini, long fin, LongConsumer consumidor) throws Exception {
+        LectorCSV lector = new LectorCSV(canal, ini, fin);
+        try {
+            return importarTickets(lector, consumidor);
+        } catch (Exception e) {
+            throw new Exception("Datos corruptos - Byte " + (ini + lector.getInicioLinea()), e);
+        }
+    }
+
+    // Lector CSV > Tickets
+    public long importarTickets(LectorCSV lector, LongConsumer consumidor) throws Exception {
+        // Lectura de líneas
+        long num = 0;
+        while (lector.siguiente()) {
+            consumidor.accept(lector.convertirTicket());
+            num++;
+        }
+
+        // Devolver Tickets
+        return num;
+    }
 
+    // Tickets > Flujo CSV
+    @Override
+    public long exportarTickets(PrimitiveIterator.OfLong tickets, OutputStream salida) throws Exception {
+        // Escritor
+        Writer escritor = new BufferedWriter(
+                new OutputStreamWriter(salida, StandardCharsets.UTF_8), TAM_BUFFER);
+
+        // Escritura de líneas
+        long num = 0;
+        while (tickets.hasNext()) {
+            long ticket = TicketCodec.comprobarTicket(tickets.nextLong());
+            escritor.write(TicketCodec.formatearNumero(TicketCodec.numero(ticket)));
+            escritor.write(UtilesCSV.SEPARADOR_ESCRITURA);
+            escritor.write(Integer.toString(TicketCodec.serie(ticket)));
+            escritor.write(UtilesCSV.SEPARADOR_ESCRITURA);
+            escritor.write(Integer.toString(TicketCodec.fraccion(ticket)));
+            escritor.write(UtilesCSV.SEPARADOR_ESCRITURA);
+            escritor.write(TicketCodec.formatearFecha(TicketCodec.fecha(ticket)));
+            escritor.write(UtilesCSV.SEPARADOR_ESCRITURA);
+            escritor.write(Integer.toString(TicketCodec.precio(ticket)));
+            escritor.write('\n');
+            num++;
+        }
+        escritor.flush();
+
+        // Devolver Tickets
+        return num;
+    }
+
+    // Lista Items > Ticket
+    private static long convertirArrayTicket(String[] items) throws Exception {
+        if (items.length != Model.NUM_ITEMS) {
+            throw new Exception("Datos corruptos");
+        }
+        return TicketCodec.empaquetar(
+                items[Model.POS_NUMERO],
+                items[Model.POS_SERIE],
+                items[Model.POS_FRACCION],
+                items[Model.POS_FECHA],
+                items[Model.POS_PRECIO]);
+    }
+
+    // Nombre del formato
+    @Override
+    public String getFormato() {
+        return "CSV";
+    }
+
+    // Extensiones de fichero
+    @Override
+    public String[] getExtensiones() {
+        return new String[]{"csv"};
+    }
+
+    // Cabecera > Confianza
+    @Override
+    public int reconocer(byte[] cabecera, int longitud) {
+        // Primera línea - Empieza por dígito y separa campos
+        int pos = UtilesFormato.saltarBlancos(cabecera, longitud, 0);
+        int primero = UtilesFormato.obtenerByte(cabecera, longitud, pos);
+        if (primero < '0' || primero > '9') {
+            return NO_RECONOCIDO;
+        }
+        for (int i = pos; i < longitud && cabecera[i] != '\n'; i++) {
+            if (cabecera[i] == LectorCSV.SEPARADOR) {
+                return RECONOCIDO;
+            }
+        }
+        return NO_RECONOCIDO;
     }
 }
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.controllers;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import org.japo.java.interfaces.IDataAccessController;
+import org.japo.java.interfaces.IDataAccessStreamController;
+import org.japo.java.interfaces.IFormatoFichero;
+import org.japo.java.interfaces.IProgreso;
+import org.japo.java.interfaces.IVerificable;
+import org.japo.java.libraries.EntradaComprimida;
+import org.japo.java.libraries.EntradaProgreso;
+import org.japo.java.libraries.SalidaComprimida;
+import org.japo.java.libraries.TicketCodec;
+import org.japo.java.models.InformeVerificacion;
+import org.japo.java.models.Model;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class DataAccessControllerGZ implements IDataAccessStreamController, IFormatoFichero, IVerificable {
+
+    // Extensión y sufijo de formato de los ficheros comprimidos
+    public static final String EXTENSION = "gz";
+    public static final String SUFIJO_FORMATO = ".GZ";
+
+    // Tamaño máximo de miembro aceptado en la verificación
+    public static final int MAX_MIEMBRO = 2 * SalidaComprimida.TAM_BLOQUE;
+
+    // Resultado del examen de la cabecera de un miembro
+    private static final int MIEMBRO_CORRUPTO = -1;
+    private static final int MIEMBRO_SIN_INDICE = -2;
+
+    // Descompresión de verificación reutilizada por hilo (Miembros sin suma)
+    private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(() -> new Inflater(true));
+    private static final ThreadLocal<byte[][]> ARRAYS = ThreadLocal.withInitial(() -> new byte[][]{
+        new byte[MAX_MIEMBRO], new byte[1 << 16]});
+
+    // Formato interno + Compresión
+    private final IDataAccessStreamController interno;
+    private final int nivel;
+    private final ForkJoinPool pool;
+
+    // Constructor Parametrizado - Compresión paralela en el pool común
+    public DataAccessControllerGZ(IDataAccessStreamController interno) {
+        this(interno, Deflater.DEFAULT_COMPRESSION, ForkJoinPool.commonPool());
+    }
+
+    // Constructor Parametrizado - Pool null = Compresión secuencial
+    public DataAccessControllerGZ(IDataAccessStreamController interno, int nivel, ForkJoinPool pool) {
+        this.interno = interno;
+        this.nivel = nivel;
+        this.pool = pool;
+    }
+
+    // Formato de los datos descomprimidos
+    public IDataAccessStreamController getInterno() {
+        return interno;
+    }
+
+    // Fichero comprimido > Modelo - Primer ticket
+    @Override
+    public void importarModelo(Model model, String fichero) throws Exception {
+        // Primer ticket del fichero
+        long[] ticket = new long[1];
+        int[] num = new int[1];
+        importarTickets(fichero, t -> {
+            if (num[0]++ == 0) {
+                ticket[0] = t;
+            }
+        });
+
+        // Fichero vacío
+        if (num[0] == 0) {
+            throw new Exception("Datos corruptos");
+        }
+
+        // Ticket > Modelo
+        TicketCodec.desempaquetar(ticket[0], model);
+    }
+
+    // Modelo > Fichero comprimido - Un ticket
+    @Override
+    public void exportarModelo(Model model, String fichero) throws Exception {
+        exportarTickets(LongStream.of(TicketCodec.empaquetar(model)).iterator(), fichero);
+    }
+
+    // Flujo comprimido > Tickets - Hasta el fin del flujo (Todos los CRC)
+    @Override
+    public long importarTickets(InputStream entrada, LongConsumer consumidor) throws Exception {
+        EntradaComprimida descomprimida = new EntradaComprimida(entrada);
+        try {
+            long num = interno.importarTickets(descomprimida, consumidor);
+            descomprimida.leerHastaFin();
+            return num;
+        } finally {
+            // No cierra el flujo recibido
+            descomprimida.terminar();
+        }
+    }
+
+    // Tickets > Flujo comprimido
+    @Override
+    public long exportarTickets(PrimitiveIterator.OfLong tickets, OutputStream salida) throws Exception {
+        SalidaComprimida comprimida = new SalidaComprimida(salida, nivel, pool);
+        long num = interno.exportarTickets(tickets, comprimida);
+
+        // Bloques pendientes - No cierra el flujo recibido
+        comprimida.finalizar();
+        return num;
+    }
+
+    // Fichero comprimido > Miembros corruptos - Suma de cada miembro en paralelo
+    @Override
+    public InformeVerificacion verificar(String fichero, ForkJoinPool pool,
+            IProgreso progreso) throws Exception {
+        try (FileChannel canal = FileChannel.open(Paths.get(fichero), StandardOpenOption.READ)) {
+            // Miembros por su tamaño declarado - Sin descomprimir
+            long tam = canal.size();
+            ByteBuffer cab = ByteBuffer.allocate(SalidaComprimida.TAM_CABECERA).order(ByteOrder.LITTLE_ENDIAN);
+            long[] cortes = new long[64];
+            int num = 0;
+            long pos = 0;
+            boolean corrupto = false;
+            while (pos < tam) {
+                int lon = leerTamMiembro(canal, pos, tam, cab);
+                if (lon == MIEMBRO_SIN_INDICE) {
+                    // Gzip externo - Sin tamaños de miembro
+                    return verificarSecuencial(fichero, tam, progreso);
+                }
+                if (lon == MIEMBRO_CORRUPTO) {
+                    // Siguientes miembros ilocalizables
+                    corrupto = true;
+                    break;
+                }
+                if (num + 1 == cortes.length) {
+                    cortes = Arrays.copyOf(cortes, cortes.length * 2);
+                }
+                cortes[num++] = pos;
+                pos += lon;
+            }
+            cortes[num] = pos;
+
+            // Verificación paralela
+            InformeVerificacion informe = new VerificacionParalela(pool, progreso).verificar(
+                    canal, Arrays.copyOf(cortes, num + 1), DataAccessControllerGZ::comprobarMiembro);
+            if (corrupto) {
+                informe.anyadirCorrupto(num, pos);
+            }
+            return informe;
+        }
+    }
+
+    // Cabecera del miembro en pos > Tamaño / MIEMBRO_CORRUPTO / MIEMBRO_SIN_INDICE
+    private static int leerTamMiembro(FileChannel canal, long pos, long tam, ByteBuffer cab) throws Exception {
+        // Cabecera completa
+        cab.clear();
+        while (cab.hasRemaining()) {
+            if (canal.read(cab, pos + cab.position()) < 0) {
+                return MIEMBRO_CORRUPTO;
+            }
+        }
+
+        // Identificación gzip
+        if ((cab.get(0) & 0xFF) != SalidaComprimida.ID1 || (cab.get(1) & 0xFF) != SalidaComprimida.ID2
+                || cab.get(2) != SalidaComprimida.CM_DEFLATE) {
+            return MIEMBRO_CORRUPTO;
+        }
+
+        // Subcampo TK
+        if ((cab.get(3) & SalidaComprimida.FLG_FEXTRA) == 0
+                || cab.get(12) != SalidaComprimida.SUBCAMPO_SI1
+                || cab.get(13) != SalidaComprimida.SUBCAMPO_SI2) {
+            return MIEMBRO_SIN_INDICE;
+        }
+
+        // Tamaño declarado
+        int lon = cab.getInt(SalidaComprimida.POS_TAM_MIEMBRO);
+        int minimo = 16 + cab.getShort(14) + SalidaComprimida.TAM_COLA;
+        return lon < minimo || lon > MAX_MIEMBRO || pos + lon > tam
+                ? MIEMBRO_CORRUPTO
+                : lon;
+    }
+
+    // Miembro leído > Suma correcta - Suma del subcampo o, si no la tiene, CRC de los datos
+    private static boolean comprobarMiembro(ByteBuffer buf) {
+        int ini = buf.position();
+        int lon = buf.remaining();
+        int lonSubcampo = buf.getShort(ini + 14);
+
+        // Suma de los bytes comprimidos - Sin descomprimir
+        if (lonSubcampo == SalidaComprimida.TAM_SUBCAMPO) {
+            ByteBuffer datos = buf.duplicate();
+            datos.position(ini + SalidaComprimida.TAM_CABECERA);
+            CRC32 crc = new CRC32();
+            crc.update(datos);
+            return (int) crc.getValue() == buf.getInt(ini + SalidaComprimida.POS_SUMA_MIEMBRO);
+        }
+
+        // Subcampo solo con tamaño - Descompresión + CRC32 e ISIZE de la cola
+        byte[][] arrays = ARRAYS.get();
+        buf.duplicate().get(arrays[0], 0, lon);
+        Inflater inflater = INFLATERS.get();
+        inflater.reset();
+        int inicioDatos = 16 + lonSubcampo;
+        inflater.setInput(arrays[0], inicioDatos, lon - inicioDatos);
+        CRC32 crc = new CRC32();
+        try {
+            while (!inflater.finished()) {
+                int num = inflater.inflate(arrays[1]);
+                if (num == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    return false;
+                }
+                crc.update(arrays[1], 0, num);
+            }
+        } catch (DataFormatException e) {
+            return false;
+        }
+        ByteBuffer cola = buf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int finDatos = ini + lon - SalidaComprimida.TAM_COLA;
+        return inflater.getRemaining() == SalidaComprimida.TAM_COLA
+                && (int) crc.getValue() == cola.getInt(finDatos)
+                && (int) inflater.getBytesWritten() == cola.getInt(finDatos + 4);
+    }
+
+    // Gzip sin tamaños de miembro > Descompresión completa (Desplazamiento de detección)
+    private static InformeVerificacion verificarSecuencial(String fichero, long tam,
+            IProgreso progreso) throws Exception {
+        InformeVerificacion informe = new InformeVerificacion();
+        long ini = System.nanoTime();
+        EntradaProgreso contador = new EntradaProgreso(new FileInputStream(fichero), tam, progreso, () -> false);
+        try (EntradaComprimida entrada = new EntradaComprimida(contador)) {
+            try {
+                entrada.leerHastaFin();
+            } catch (IOException e) {
+                informe.anyadirCorrupto(entrada.getMiembros(), contador.getLeidos());
+            }
+        }
+        informe.acumularBloque(tam);
+        informe.setNanos(System.nanoTime() - ini);
+        return informe;
+    }
+
+    // Nombre del formato - Interno + .GZ
+    @Override
+    public String getFormato() {
+        return RegistroFormatos.obtenerFormato(interno) + SUFIJO_FORMATO;
+    }
+
+    // Extensiones de fichero - Internas + .gz
+    @Override
+    public String[] getExtensiones() {
+        String[] internas = interno instanceof IFormatoFichero
+                ? ((IFormatoFichero) interno).getExtensiones()
+                : new String[]{RegistroFormatos.obtenerFormato(interno).toLowerCase()};
+        String[] extensiones = new String[internas.length];
+        for (int i = 0; i < internas.length; i++) {
+            extensiones[i] = internas[i] + "." + EXTENSION;
+        }
+        return extensiones;
+    }
+
+    // Cabecera > Confianza - Solo la capa gzip
+    @Override
+    public int reconocer(byte[] cabecera, int longitud) {
+        return EntradaComprimida.esComprimido(cabecera, longitud)
+                ? RECONOCIDO_MAGIC
+                : NO_RECONOCIDO;
+    }
+
+    // Controlador > Versión comprimida (Solo formatos por flujo)
+    public static IDataAccessController comprimir(IDataAccessController dac) throws Exception {
+        if (!(dac instanceof IDataAccessStreamController)) {
+            throw new Exception("El formato " + RegistroFormatos.obtenerFormato(dac)
+                    + " no admite compresión");
+        }
+        return new DataAccessControllerGZ((IDataAccessStreamController) dac);
+    }
+}
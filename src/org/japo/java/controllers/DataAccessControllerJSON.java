@@ -17,28 +17,70 @@ package org.japo.java.controllers;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.BufferedWriter;
 import java.io.FileReader;
 import java.io.FileWriter;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
-import org.japo.java.interfaces.IDataAccessController;
+import java.nio.charset.StandardCharsets;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+import org.japo.java.interfaces.IDataAccessStreamController;
+import org.japo.java.interfaces.IFormatoFichero;
+import org.japo.java.libraries.ModelTypeAdapter;
+import org.japo.java.libraries.TicketCodec;
+import org.japo.java.libraries.UtilesFormato;
 import org.japo.java.models.Model;
 
 /**
  *
  * @author José A. Pacheco Ondoño - joanpaon@gmail.com
  */
-public class DataAccessControllerJSON implements IDataAccessController {
+public class DataAccessControllerJSON implements IDataAccessStreamController, IFormatoFichero {
 
-    // Fichero JSON > Modelo
+    // Nombres Campos JSON
+    public static final String JSON_NUMERO = ModelTypeAdapter.JSON_NUMERO;
+    public static final String JSON_SERIE = ModelTypeAdapter.JSON_SERIE;
+    public static final String JSON_FRACCION = ModelTypeAdapter.JSON_FRACCION;
+    public static final String JSON_FECHA = ModelTypeAdapter.JSON_FECHA;
+    public static final String JSON_PRECIO = ModelTypeAdapter.JSON_PRECIO;
+
+    // Gson compartido - Adaptador de Model sin reflexión (Seguro entre hilos)
+    public static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(Model.class, new ModelTypeAdapter())
+            .create();
+
+
+    // Fichero JSON > Modelo - Objeto único o primero del array
     @Override
     public void importarModelo(Model modeloFin, String fichero) throws Exception {
         try (JsonReader entrada = new JsonReader(new FileReader(fichero))) {
-            // Crea Objeto Gson
-            Gson gson = new Gson();
-
             // Fichero JSON > Modelo (Importado)
-            Model modeloIni = gson.fromJson(entrada, Model.class);
+            Model modeloIni = null;
+            try {
+                if (entrada.peek() != JsonToken.BEGIN_ARRAY) {
+                    modeloIni = GSON.fromJson(entrada, Model.class);
+                } else {
+                    entrada.beginArray();
+                    if (entrada.hasNext()) {
+                        modeloIni = GSON.fromJson(entrada, Model.class);
+                    }
+                }
+            } catch (JsonParseException e) {
+                throw new Exception("Datos corruptos", e);
+            }
+
+            // Fichero vacío
+            if (modeloIni == null) {
+                throw new Exception("Datos corruptos");
+            }
 
             // Modelo (Importado) > Modelo
             convertirModeloModelo(modeloIni, modeloFin);
@@ -49,16 +91,100 @@ public class DataAccessControllerJSON implements IDataAccessController {
     @Override
     public void exportarModelo(Model model, String fichero) throws Exception {
         try (Writer salida = new FileWriter(fichero)) {
-            // Instancia Objeto Gson
-            Gson gson = new GsonBuilder().create();
-
             // Escribe los datos en el fichero
-            gson.toJson(model, salida);
+            GSON.toJson(model, Model.class, salida);
         }
     }
 
     // Modelo > Modelo
     public void convertirModeloModelo(Model modeloIni, Model modeloFin) {
+        modeloFin.setNumero(modeloIni.getNumero());
+        modeloFin.setSerie(modeloIni.getSerie());
+        modeloFin.setFraccion(modeloIni.getFraccion());
+        modeloFin.setFecha(modeloIni.getFecha());
+        modeloFin.setPrecio(modeloIni.getPrecio());
+    }
+
+    // Flujo JSON > Tickets - Array de objetos u objeto único
+    @Override
+    public long importarTickets(InputStream entrada, LongConsumer consumidor) throws Exception {
+        // Lector JSON en flujo
+        JsonReader lector = new JsonReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+
+        // Objeto único
+        if (lector.peek() == JsonToken.BEGIN_OBJECT) {
+            consumidor.accept(leerTicket(lector));
+            return 1;
+        }
+
+        // Array de objetos
+        long num = 0;
+        lector.beginArray();
+        while (lector.hasNext()) {
+            consumidor.accept(leerTicket(lector));
+            num++;
+        }
+        lector.endArray();
+
+        // Devolver Tickets
+        return num;
+    }
+
+    // Tickets > Flujo JSON - Array de objetos
+    @Override
+    public long exportarTickets(PrimitiveIterator.OfLong tickets, OutputStream salida) throws Exception {
+        // Escritor JSON en flujo
+        JsonWriter escritor = new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(salida, StandardCharsets.UTF_8), TAM_BUFFER));
 
+        // Array de objetos
+        long num = 0;
+        escritor.beginArray();
+        while (tickets.hasNext()) {
+            escribirTicket(escritor, TicketCodec.comprobarTicket(tickets.nextLong()));
+            num++;
+        }
+        escritor.endArray();
+        escritor.flush();
+
+        // Devolver Tickets
+        return num;
+    }
+
+    // Objeto JSON > Ticket
+    public static long leerTicket(JsonReader lector) throws Exception {
+        return ModelTypeAdapter.leerTicket(lector);
+    }
+
+    // Ticket > Objeto JSON
+    public static void escribirTicket(JsonWriter escritor, long ticket) throws Exception {
+        ModelTypeAdapter.escribirTicket(escritor, ticket);
+    }
+
+    // Nombre del formato
+    @Override
+    public String getFormato() {
+        return "JSON";
+    }
+
+    // Extensiones de fichero
+    @Override
+    public String[] getExtensiones() {
+        return new String[]{"json"};
+    }
+
+    // Cabecera > Confianza
+    @Override
+    public int reconocer(byte[] cabecera, int longitud) {
+        // Array de objetos / Objeto único (También NDJSON de una línea)
+        int pos = UtilesFormato.saltarBlancos(cabecera, longitud, 0);
+        switch (UtilesFormato.obtenerByte(cabecera, longitud, pos)) {
+            case '[':
+                return RECONOCIDO;
+            case '{':
+                return RECONOCIDO_DEBIL;
+            default:
+                return NO_RECONOCIDO;
+        }
     }
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.controllers;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import org.japo.java.interfaces.IDataAccessStreamController;
+import org.japo.java.interfaces.IFormatoFichero;
+import org.japo.java.libraries.TicketCodec;
+import org.japo.java.libraries.UtilesFormato;
+import org.japo.java.models.Model;
+import org.japo.java.models.TicketStore;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class DataAccessControllerLNTS implements IDataAccessStreamController, IFormatoFichero {
+
+    // Almacén LNTS > Modelo - Primera fila
+    @Override
+    public void importarModelo(Model model, String fichero) throws Exception {
+        // Primer ticket del almacén
+        long[] ticket = new long[1];
+        int[] num = new int[1];
+        importarTickets(fichero, t -> {
+            if (num[0]++ == 0) {
+                ticket[0] = t;
+            }
+        });
+
+        // Almacén vacío
+        if (num[0] == 0) {
+            throw new Exception("Datos corruptos");
+        }
+
+        // Ticket > Modelo
+        TicketCodec.desempaquetar(ticket[0], model);
+    }
+
+    // Modelo > Almacén LNTS - Una fila
+    @Override
+    public void exportarModelo(Model model, String fichero) throws Exception {
+        exportarTickets(LongStream.of(TicketCodec.empaquetar(model)).iterator(), fichero);
+    }
+
+    // Flujo LNTS > Tickets - Segmento a segmento, sin mapear el fichero
+    @Override
+    public long importarTickets(InputStream entrada, LongConsumer consumidor) throws Exception {
+        DataInputStream datos = new DataInputStream(entrada);
+        try {
+            // Cabecera
+            ByteBuffer cab = ByteBuffer.allocate(TicketStore.TAM_CABECERA).order(ByteOrder.LITTLE_ENDIAN);
+            datos.readFully(cab.array());
+            int filas = cab.getInt(4);
+            if (cab.getInt(0) != TicketStore.MAGIC || filas < 0) {
+                throw new Exception("Datos corruptos");
+            }
+
+            // Segmentos completos - Columnas de la fila i
+            ByteBuffer seg = ByteBuffer.allocate(TicketStore.TAM_SEGMENTO).order(ByteOrder.LITTLE_ENDIAN);
+            int despNumero = TicketStore.obtenerDesplazamiento(Model.POS_NUMERO);
+            int despSerie = TicketStore.obtenerDesplazamiento(Model.POS_SERIE);
+            int despFraccion = TicketStore.obtenerDesplazamiento(Model.POS_FRACCION);
+            int despFecha = TicketStore.obtenerDesplazamiento(Model.POS_FECHA);
+            int despPrecio = TicketStore.obtenerDesplazamiento(Model.POS_PRECIO);
+            for (int ini = 0; ini < filas; ini += TicketStore.FILAS_SEGMENTO) {
+                datos.readFully(seg.array());
+                int fin = Math.min(TicketStore.FILAS_SEGMENTO, filas - ini);
+                for (int i = 0; i < fin; i++) {
+                    int numero = seg.getInt(despNumero + i * 4);
+                    int serie = seg.get(despSerie + i) & 0xFF;
+                    int fraccion = seg.get(despFraccion + i) & 0xFF;
+                    int fecha = seg.getInt(despFecha + i * 4);
+                    int precio = seg.get(despPrecio + i) & 0xFF;
+                    if (!TicketCodec.validarCampos(numero, serie, fraccion, precio) ||
+                            !TicketCodec.validarFecha(fecha)) {
+                        throw new Exception("Datos corruptos - Fila " + (ini + i));
+                    }
+                    consumidor.accept(TicketCodec.empaquetarSinComprobar(
+                            numero, serie, fraccion, fecha, precio));
+                }
+            }
+
+            // Devolver Tickets
+            return filas;
+        } catch (EOFException e) {
+            throw new Exception("Datos corruptos - Almacén truncado", e);
+        }
+    }
+
+    // Tickets > Flujo LNTS - Misma disposición que el almacén mapeado
+    @Override
+    public long exportarTickets(PrimitiveIterator.OfLong tickets, OutputStream salida) throws Exception {
+        try (TicketStore store = new TicketStore()) {
+            // Tickets > Columnas en memoria - Número de filas para la cabecera
+            while (tickets.hasNext()) {
+                store.insertar(TicketCodec.comprobarTicket(tickets.nextLong()));
+            }
+            int filas = store.getFilas();
+
+            // Cabecera
+            ByteBuffer cab = ByteBuffer.allocate(TicketStore.TAM_CABECERA).order(ByteOrder.LITTLE_ENDIAN);
+            cab.putInt(0, TicketStore.MAGIC);
+            cab.putInt(4, filas);
+            salida.write(cab.array());
+
+            // Segmentos completos - Columna a columna
+            ByteBuffer seg = ByteBuffer.allocate(TicketStore.TAM_SEGMENTO).order(ByteOrder.LITTLE_ENDIAN);
+            for (int ini = 0; ini < filas; ini += TicketStore.FILAS_SEGMENTO) {
+                int fin = Math.min(filas, ini + TicketStore.FILAS_SEGMENTO);
+                if (fin - ini < TicketStore.FILAS_SEGMENTO) {
+                    // Último segmento - Filas libres a cero, como en el fichero mapeado
+                    Arrays.fill(seg.array(), (byte) 0);
+                }
+                for (int pos = 0; pos < Model.NUM_ITEMS; pos++) {
+                    seg.position(TicketStore.obtenerDesplazamiento(pos));
+                    if (TicketStore.ANCHO_COLUMNA[pos] == 4) {
+                        store.recorrerColumna(pos, ini, fin, seg::putInt);
+                    } else {
+                        store.recorrerColumna(pos, ini, fin, v -> seg.put((byte) v));
+                    }
+                }
+                salida.write(seg.array());
+                seg.clear();
+            }
+            salida.flush();
+
+            // Devolver Tickets
+            return filas;
+        }
+    }
+
+    // Nombre del formato
+    @Override
+    public String getFormato() {
+        return "LNTS";
+    }
+
+    // Extensiones de fichero
+    @Override
+    public String[] getExtensiones() {
+        return new String[]{"lnts"};
+    }
+
+    // Cabecera > Confianza
+    @Override
+    public int reconocer(byte[] cabecera, int longitud) {
+        // Bytes mágicos - MAGIC little endian
+        return UtilesFormato.empiezaPor(cabecera, longitud, 0, "STNL")
+                ? RECONOCIDO_MAGIC
+                : NO_RECONOCIDO;
+    }
+}
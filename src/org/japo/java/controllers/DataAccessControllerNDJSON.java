@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.controllers;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.BufferedWriter;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import org.japo.java.interfaces.IDataAccessStreamController;
+import org.japo.java.interfaces.IFormatoFichero;
+import org.japo.java.interfaces.ILectorRango;
+import org.japo.java.libraries.EntradaRango;
+import org.japo.java.libraries.TicketCodec;
+import org.japo.java.libraries.UtilesFormato;
+import org.japo.java.models.Model;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class DataAccessControllerNDJSON implements IDataAccessStreamController, ILectorRango, IFormatoFichero {
+
+    // Fichero NDJSON > Modelo - Primera línea
+    @Override
+    public void importarModelo(Model model, String fichero) throws Exception {
+        // Primer ticket del fichero
+        long[] ticket = new long[1];
+        int[] num = new int[1];
+        importarTickets(fichero, t -> {
+            if (num[0]++ == 0) {
+                ticket[0] = t;
+            }
+        });
+
+        // Fichero vacío
+        if (num[0] == 0) {
+            throw new Exception("Datos corruptos");
+        }
+
+        // Ticket > Modelo
+        TicketCodec.desempaquetar(ticket[0], model);
+    }
+
+    // Modelo > Fichero NDJSON - Una línea
+    @Override
+    public void exportarModelo(Model model, String fichero) throws Exception {
+        exportarTickets(LongStream.of(TicketCodec.empaquetar(model)).iterator(), fichero);
+    }
+
+    // Flujo NDJSON > Tickets - Un objeto por línea
+    @Override
+    public long importarTickets(InputStream entrada, LongConsumer consumidor) throws Exception {
+        return importarTickets(new InputStreamReader(entrada, StandardCharsets.UTF_8), consumidor);
+    }
+
+    // Rango de fichero NDJSON > Tickets - Líneas independientes
+    @Override
+    public long importarRango(FileChannel canal, long ini, long fin, LongConsumer consumidor) throws Exception {
+        try {
+            return importarTickets(new InputStreamReader(
+                    new EntradaRango(canal, ini, fin), StandardCharsets.UTF_8), consumidor);
+        } catch (Exception e) {
+            throw new Exception("Datos corruptos - Bloque en byte " + ini, e);
+        }
+    }
+
+    // Tickets > Flujo NDJSON
+    @Override
+    public long exportarTickets(PrimitiveIterator.OfLong tickets, OutputStream salida) throws Exception {
+        // Escritor de líneas
+        Writer escritor = new BufferedWriter(
+                new OutputStreamWriter(salida, StandardCharsets.UTF_8), TAM_BUFFER);
+
+        // Escritor JSON - Valores de primer nivel consecutivos
+        JsonWriter json = new JsonWriter(escritor);
+        json.setLenient(true);
+
+        // Un objeto por línea
+        long num = 0;
+        while (tickets.hasNext()) {
+            DataAccessControllerJSON.escribirTicket(json, TicketCodec.comprobarTicket(tickets.nextLong()));
+            escritor.write('\n');
+            num++;
+        }
+        escritor.flush();
+
+        // Devolver Tickets
+        return num;
+    }
+
+    // Texto NDJSON > Tickets
+    private static long importarTickets(Reader entrada, LongConsumer consumidor) throws Exception {
+        // Lector JSON - Valores de primer nivel consecutivos
+        JsonReader lector = new JsonReader(entrada);
+        lector.setLenient(true);
+
+        // Objetos hasta fin de documento
+        long num = 0;
+        while (lector.peek() != JsonToken.END_DOCUMENT) {
+            consumidor.accept(DataAccessControllerJSON.leerTicket(lector));
+            num++;
+        }
+
+        // Devolver Tickets
+        return num;
+    }
+
+    // Nombre del formato
+    @Override
+    public String getFormato() {
+        return "NDJSON";
+    }
+
+    // Extensiones de fichero
+    @Override
+    public String[] getExtensiones() {
+        return new String[]{"ndjson", "jsonl"};
+    }
+
+    // Cabecera > Confianza
+    @Override
+    public int reconocer(byte[] cabecera, int longitud) {
+        // Objeto en la primera línea y en la siguiente
+        int pos = UtilesFormato.saltarBlancos(cabecera, longitud, 0);
+        if (UtilesFormato.obtenerByte(cabecera, longitud, pos) != '{') {
+            return NO_RECONOCIDO;
+        }
+        pos = UtilesFormato.saltarLinea(cabecera, longitud, pos);
+        pos = UtilesFormato.saltarBlancos(cabecera, longitud, pos);
+        return UtilesFormato.obtenerByte(cabecera, longitud, pos) == '{'
+                ? RECONOCIDO
+                : NO_RECONOCIDO;
+    }
+}
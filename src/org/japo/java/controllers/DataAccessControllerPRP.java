@@ -15,19 +15,34 @@
  */
 package org.japo.java.controllers;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.PrimitiveIterator;
 import java.util.Properties;
-import org.japo.java.interfaces.IDataAccessController;
+import java.util.function.LongConsumer;
+import org.japo.java.interfaces.IDataAccessStreamController;
+import org.japo.java.interfaces.IFormatoFichero;
 import org.japo.java.models.Model;
+import org.japo.java.libraries.TicketCodec;
 import org.japo.java.libraries.UtilesApp;
 import org.japo.java.libraries.UtilesFecha;
-import org.japo.java.libraries.UtilesValidacion;
+import org.japo.java.libraries.UtilesFormato;
+import org.japo.java.libraries.ValidadorModelo;
 
 /**
  *
  * @author José A. Pacheco Ondoño - joanpaon@gmail.com
  */
-public class DataAccessControllerPRP implements IDataAccessController {
+public class DataAccessControllerPRP implements IDataAccessStreamController, IFormatoFichero {
+
     // Nombres Propiedades
+    public static final String PRP_PREFIJO = "loteria.";
     public static final String PRP_NUMERO = "loteria.numero";
     public static final String PRP_SERIE = "loteria.serie";
     public static final String PRP_FRACCION = "loteria.fraccion";
@@ -66,41 +81,179 @@ public class DataAccessControllerPRP implements IDataAccessController {
         prp.setProperty(PRP_PRECIO, model.getPrecio());
     }
 
-    // Propiedades > Modelo
+    // Propiedades > Modelo - Todo validado antes de modificar el modelo
     void convertirPropiedadesModelo(Properties prp, Model model) throws Exception {
-        // Número
-        if (UtilesValidacion.validarDato(prp.getProperty(PRP_NUMERO), Model.ER_NUMERO)) {
-            model.setNumero(prp.getProperty(PRP_NUMERO));
-        } else {
+        // Valores
+        String numero = prp.getProperty(PRP_NUMERO);
+        String serie = prp.getProperty(PRP_SERIE);
+        String fraccion = prp.getProperty(PRP_FRACCION);
+        String fecha = prp.getProperty(PRP_FECHA);
+        String precio = prp.getProperty(PRP_PRECIO);
+
+        // Validación completa
+        if (!ValidadorModelo.validarNumero(numero)
+                || !ValidadorModelo.validarSerie(serie)
+                || !ValidadorModelo.validarFraccion(fraccion)
+                || !UtilesFecha.validarFecha(fecha)
+                || !ValidadorModelo.validarPrecio(precio)) {
             throw new Exception("Datos corruptos");
         }
 
-        // Serie
-        if (UtilesValidacion.validarDato(prp.getProperty(PRP_SERIE), Model.ER_SERIE)) {
-            model.setSerie(prp.getProperty(PRP_SERIE));
-        } else {
-            throw new Exception("Datos corruptos");
+        // Valores > Modelo
+        model.setNumero(numero);
+        model.setSerie(serie);
+        model.setFraccion(fraccion);
+        model.setFecha(fecha);
+        model.setPrecio(precio);
+    }
+
+    // Flujo Propiedades > Tickets - Un bloque por ticket separado por línea vacía
+    @Override
+    public long importarTickets(InputStream entrada, LongConsumer consumidor) throws Exception {
+        // Lector de líneas (ISO-8859-1 como Properties)
+        BufferedReader lector = new BufferedReader(
+                new InputStreamReader(entrada, StandardCharsets.ISO_8859_1), TAM_BUFFER);
+
+        // Campos del bloque actual
+        String[] items = new String[Model.NUM_ITEMS];
+        int vistos = 0;
+        long num = 0;
+
+        // Lectura de líneas
+        String linea;
+        while ((linea = lector.readLine()) != null) {
+            linea = linea.trim();
+
+            // Fin de bloque
+            if (linea.isEmpty()) {
+                if (vistos != 0) {
+                    consumidor.accept(convertirItemsTicket(items, vistos));
+                    vistos = 0;
+                    num++;
+                }
+                continue;
+            }
+
+            // Comentarios
+            if (linea.charAt(0) == '#' || linea.charAt(0) == '!') {
+                continue;
+            }
+
+            // Clave = Valor
+            int posSep = linea.indexOf('=');
+            if (posSep < 0) {
+                throw new Exception("Datos corruptos");
+            }
+            int pos = obtenerPosicion(linea.substring(0, posSep).trim());
+            if (pos < 0 || (vistos & 1 << pos) != 0) {
+                throw new Exception("Datos corruptos");
+            }
+            items[pos] = linea.substring(posSep + 1).trim();
+            vistos |= 1 << pos;
         }
 
-        // Fracción
-        if (UtilesValidacion.validarDato(prp.getProperty(PRP_FRACCION), Model.ER_FRACCION)) {
-            model.setFraccion(prp.getProperty(PRP_FRACCION));
-        } else {
-            throw new Exception("Datos corruptos");
+        // Último bloque
+        if (vistos != 0) {
+            consumidor.accept(convertirItemsTicket(items, vistos));
+            num++;
         }
 
-        // Fecha
-        if (UtilesFecha.validarFecha(prp.getProperty(PRP_FECHA))) {
-            model.setFecha(prp.getProperty(PRP_FECHA));
-        } else {
-            throw new Exception("Datos corruptos");
+        // Devolver Tickets
+        return num;
+    }
+
+    // Tickets > Flujo Propiedades
+    @Override
+    public long exportarTickets(PrimitiveIterator.OfLong tickets, OutputStream salida) throws Exception {
+        // Escritor (ISO-8859-1 como Properties)
+        Writer escritor = new BufferedWriter(
+                new OutputStreamWriter(salida, StandardCharsets.ISO_8859_1), TAM_BUFFER);
+
+        // Escritura de bloques
+        long num = 0;
+        while (tickets.hasNext()) {
+            long ticket = TicketCodec.comprobarTicket(tickets.nextLong());
+            if (num > 0) {
+                escritor.write('\n');
+            }
+            escribirLinea(escritor, PRP_NUMERO, TicketCodec.formatearNumero(TicketCodec.numero(ticket)));
+            escribirLinea(escritor, PRP_SERIE, Integer.toString(TicketCodec.serie(ticket)));
+            escribirLinea(escritor, PRP_FRACCION, Integer.toString(TicketCodec.fraccion(ticket)));
+            escribirLinea(escritor, PRP_FECHA, TicketCodec.formatearFecha(TicketCodec.fecha(ticket)));
+            escribirLinea(escritor, PRP_PRECIO, Integer.toString(TicketCodec.precio(ticket)));
+            num++;
         }
+        escritor.flush();
 
-        // Precio
-        if (UtilesValidacion.validarDato(prp.getProperty(PRP_PRECIO), Model.ER_PRECIO)) {
-            model.setPrecio(prp.getProperty(PRP_PRECIO));
-        } else {
+        // Devolver Tickets
+        return num;
+    }
+
+    // Nombre Propiedad > Posición del campo
+    private static int obtenerPosicion(String clave) {
+        switch (clave) {
+            case PRP_NUMERO:
+                return Model.POS_NUMERO;
+            case PRP_SERIE:
+                return Model.POS_SERIE;
+            case PRP_FRACCION:
+                return Model.POS_FRACCION;
+            case PRP_FECHA:
+                return Model.POS_FECHA;
+            case PRP_PRECIO:
+                return Model.POS_PRECIO;
+            default:
+                return -1;
+        }
+    }
+
+    // Bloque completo > Ticket
+    private static long convertirItemsTicket(String[] items, int vistos) throws Exception {
+        if (vistos != (1 << Model.NUM_ITEMS) - 1) {
             throw new Exception("Datos corruptos");
         }
+        return TicketCodec.empaquetar(
+                items[Model.POS_NUMERO],
+                items[Model.POS_SERIE],
+                items[Model.POS_FRACCION],
+                items[Model.POS_FECHA],
+                items[Model.POS_PRECIO]);
+    }
+
+    // Línea clave=valor
+    private static void escribirLinea(Writer escritor, String clave, String valor) throws Exception {
+        escritor.write(clave);
+        escritor.write('=');
+        escritor.write(valor);
+        escritor.write('\n');
+    }
+
+    // Nombre del formato
+    @Override
+    public String getFormato() {
+        return "PRP";
+    }
+
+    // Extensiones de fichero
+    @Override
+    public String[] getExtensiones() {
+        return new String[]{"prp", "properties"};
+    }
+
+    // Cabecera > Confianza
+    @Override
+    public int reconocer(byte[] cabecera, int longitud) {
+        // Primera línea que no es comentario
+        int pos = UtilesFormato.saltarBlancos(cabecera, longitud, 0);
+        while (UtilesFormato.obtenerByte(cabecera, longitud, pos) == '#' ||
+                UtilesFormato.obtenerByte(cabecera, longitud, pos) == '!') {
+            pos = UtilesFormato.saltarBlancos(cabecera, longitud,
+                    UtilesFormato.saltarLinea(cabecera, longitud, pos));
+        }
+
+        // Clave de ticket
+        return UtilesFormato.empiezaPor(cabecera, longitud, pos, PRP_PREFIJO)
+                ? RECONOCIDO
+                : NO_RECONOCIDO;
     }
 }
@@ -15,18 +15,30 @@
  */
 package org.japo.java.controllers;
 
+import java.io.EOFException;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
 import org.japo.java.models.Model;
-import org.japo.java.interfaces.IDataAccessController;
+import org.japo.java.interfaces.IDataAccessStreamController;
+import org.japo.java.interfaces.IFormatoFichero;
+import org.japo.java.libraries.TicketCodec;
+import org.japo.java.libraries.UtilesFormato;
 
 /**
  *
  * @author José A. Pacheco Ondoño - joanpaon@gmail.com
  */
-public class DataAccessControllerSBIN implements IDataAccessController {
+public class DataAccessControllerSBIN implements IDataAccessStreamController, IFormatoFichero {
+
+    // Objetos entre reinicios de la tabla de referencias
+    public static final int OBJETOS_RESET = 1024;
+
 
     // Fichero SBIN > Modelo
     @Override
@@ -51,6 +63,80 @@ public class DataAccessControllerSBIN implements IDataAccessController {
 
     // Modelo > Modelo
     public void convertirModeloModelo(Model modeloIni, Model modeloFin) throws Exception {
+        modeloFin.setNumero(modeloIni.getNumero());
+        modeloFin.setSerie(modeloIni.getSerie());
+        modeloFin.setFraccion(modeloIni.getFraccion());
+        modeloFin.setFecha(modeloIni.getFecha());
+        modeloFin.setPrecio(modeloIni.getPrecio());
+    }
+
+    // Flujo SBIN > Tickets - Modelos hasta null o fin de flujo
+    @Override
+    public long importarTickets(InputStream entrada, LongConsumer consumidor) throws Exception {
+        // Flujo de objetos
+        ObjectInputStream lector = new ObjectInputStream(entrada);
+
+        // Lectura de modelos
+        long num = 0;
+        try {
+            Object obj;
+            while ((obj = lector.readObject()) != null) {
+                consumidor.accept(TicketCodec.empaquetar((Model) obj));
+                num++;
+            }
+        } catch (EOFException e) {
+            // Fichero de un único modelo - Sin marca final
+        }
+
+        // Devolver Tickets
+        return num;
+    }
+
+    // Tickets > Flujo SBIN - Modelos + null final
+    @Override
+    public long exportarTickets(PrimitiveIterator.OfLong tickets, OutputStream salida) throws Exception {
+        // Flujo de objetos
+        ObjectOutputStream escritor = new ObjectOutputStream(salida);
+
+        // Escritura de modelos
+        long num = 0;
+        Model model = new Model();
+        while (tickets.hasNext()) {
+            TicketCodec.desempaquetar(TicketCodec.comprobarTicket(tickets.nextLong()), model);
+            escritor.writeUnshared(model);
+            num++;
 
+            // Memoria constante - Olvida las referencias escritas
+            if (num % OBJETOS_RESET == 0) {
+                escritor.reset();
+            }
+        }
+        escritor.writeObject(null);
+        escritor.flush();
+
+        // Devolver Tickets
+        return num;
+    }
+
+    // Nombre del formato
+    @Override
+    public String getFormato() {
+        return "SBIN";
+    }
+
+    // Extensiones de fichero
+    @Override
+    public String[] getExtensiones() {
+        return new String[]{"sbin", "ser"};
+    }
+
+    // Cabecera > Confianza
+    @Override
+    public int reconocer(byte[] cabecera, int longitud) {
+        // Bytes mágicos - ObjectStreamConstants.STREAM_MAGIC
+        return UtilesFormato.obtenerByte(cabecera, longitud, 0) == 0xAC &&
+                UtilesFormato.obtenerByte(cabecera, longitud, 1) == 0xED
+                ? RECONOCIDO_MAGIC
+                : NO_RECONOCIDO;
     }
 }
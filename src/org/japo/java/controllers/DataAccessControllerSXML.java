@@ -15,29 +15,35 @@
  */
 package org.japo.java.controllers;
 
-import java.beans.XMLDecoder;
 import java.beans.XMLEncoder;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
-import org.japo.java.interfaces.IDataAccessController;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+import org.japo.java.interfaces.IDataAccessStreamController;
+import org.japo.java.interfaces.IFormatoFichero;
+import org.japo.java.libraries.TicketCodec;
+import org.japo.java.libraries.UtilesFormato;
 import org.japo.java.models.Model;
 
 /**
  *
  * @author José A. Pacheco Ondoño - joanpaon@gmail.com
  */
-public class DataAccessControllerSXML implements IDataAccessController {
+public class DataAccessControllerSXML implements IDataAccessStreamController, IFormatoFichero {
 
-    // Fichero SXML > Modelo
+    // Objetos entre volcados del codificador
+    public static final int OBJETOS_VOLCADO = 1024;
+
+    // Lector StAX - Sin reflexión ni documento completo en memoria
+    private final DataAccessControllerXML lectorXML = new DataAccessControllerXML();
+
+    // Fichero SXML > Modelo - Primer objeto
     @Override
     public void importarModelo(Model model, String fichero) throws Exception {
-        try (XMLDecoder entrada = new XMLDecoder(new FileInputStream(fichero))) {
-            // Fichero SXML > Modelo (Importado)
-            Model modelClon = (Model) entrada.readObject();
-
-            // Modelo (Importado) > Modelo
-            convertirModeloModelo(modelClon, model);
-        }
+        lectorXML.importarModelo(model, fichero);
     }
 
     // Modelo > Fichero SXML
@@ -49,8 +55,72 @@ public class DataAccessControllerSXML implements IDataAccessController {
         }
     }
 
-    // Modelo > Modelo
-    public void convertirModeloModelo(Model modeloIni, Model modeloFin) throws Exception {
+    // Flujo SXML > Tickets - Objetos del documento en streaming
+    @Override
+    public long importarTickets(InputStream entrada, LongConsumer consumidor) throws Exception {
+        return lectorXML.importarTickets(entrada, consumidor);
+    }
+
+    // Tickets > Flujo SXML
+    @Override
+    public long exportarTickets(PrimitiveIterator.OfLong tickets, OutputStream salida) throws Exception {
+        // Codificador - Su cierre no cierra el flujo recibido
+        XMLEncoder escritor = new XMLEncoder(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                salida.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                salida.write(b, off, len);
+            }
 
+            @Override
+            public void close() throws IOException {
+                salida.flush();
+            }
+        });
+
+        // Escritura de modelos
+        long num = 0;
+        while (tickets.hasNext()) {
+            escritor.writeObject(TicketCodec.desempaquetar(TicketCodec.comprobarTicket(tickets.nextLong())));
+            num++;
+
+            // Memoria constante - Vuelca las sentencias pendientes
+            if (num % OBJETOS_VOLCADO == 0) {
+                escritor.flush();
+            }
+        }
+
+        // Cierre del documento
+        escritor.close();
+
+        // Devolver Tickets
+        return num;
+    }
+
+    // Nombre del formato
+    @Override
+    public String getFormato() {
+        return "SXML";
+    }
+
+    // Extensiones de fichero
+    @Override
+    public String[] getExtensiones() {
+        return new String[]{"sxml"};
+    }
+
+    // Cabecera > Confianza
+    @Override
+    public int reconocer(byte[] cabecera, int longitud) {
+        // Documento XMLEncoder
+        int pos = UtilesFormato.saltarBlancos(cabecera, longitud, 0);
+        return UtilesFormato.obtenerByte(cabecera, longitud, pos) == '<' &&
+                UtilesFormato.contiene(cabecera, longitud, "<" + DataAccessControllerXML.SXML_RAIZ)
+                ? RECONOCIDO
+                : NO_RECONOCIDO;
     }
 }
@@ -0,0 +1,527 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.controllers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32;
+import org.japo.java.interfaces.IDataAccessStreamController;
+import org.japo.java.interfaces.IFormatoFichero;
+import org.japo.java.interfaces.IProgreso;
+import org.japo.java.interfaces.IVerificable;
+import org.japo.java.libraries.TicketCodec;
+import org.japo.java.libraries.UtilesFormato;
+import org.japo.java.models.InformeVerificacion;
+import org.japo.java.models.Model;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class DataAccessControllerTBIN implements IDataAccessStreamController, IFormatoFichero, IVerificable {
+
+    // Cabecera - Magic + Versión + Tamaño de registro + Registros por bloque
+    public static final int MAGIC = 0x4E494254;     // TBIN
+    public static final int VERSION = 2;
+    public static final int TAM_CABECERA = 16;
+
+    // Registro - Ticket empaquetado (Little endian)
+    public static final int TAM_REGISTRO = Long.BYTES;
+
+    // Buffer directo de canal - Múltiplo del registro
+    public static final int TAM_BUFFER_CANAL = 1 << 20;
+
+    // Bloque (Versión 2) - Registros + CRC32 de sus bytes
+    public static final int REGISTROS_BLOQUE = 1 << 16;
+    public static final int TAM_SUMA = Integer.BYTES;
+    public static final int MAX_REGISTROS_BLOQUE = (TAM_BUFFER_CANAL - TAM_SUMA) / TAM_REGISTRO;
+
+    // Buffers directos y CRC reutilizados por hilo - Reserva costosa
+    private static final ThreadLocal<ByteBuffer> BUFFERS = ThreadLocal.withInitial(
+            () -> ByteBuffer.allocateDirect(TAM_BUFFER_CANAL).order(ByteOrder.LITTLE_ENDIAN));
+    private static final ThreadLocal<CRC32> CRCS = ThreadLocal.withInitial(CRC32::new);
+
+    // Fichero TBIN > Modelo - Primer registro
+    @Override
+    public void importarModelo(Model model, String fichero) throws Exception {
+        try (FileChannel canal = FileChannel.open(Paths.get(fichero), StandardOpenOption.READ)) {
+            // Fichero vacío
+            if (contarRegistros(canal) == 0) {
+                throw new Exception("Datos corruptos");
+            }
+
+            // Registro > Modelo
+            TicketCodec.desempaquetar(leerRegistro(canal, 0), model);
+        }
+    }
+
+    // Modelo > Fichero TBIN - Un registro
+    @Override
+    public void exportarModelo(Model model, String fichero) throws Exception {
+        exportarTickets(LongStream.of(TicketCodec.empaquetar(model)).iterator(), fichero);
+    }
+
+    // Flujo TBIN > Tickets - Suma de cada bloque comprobada antes de entregarlo
+    @Override
+    public long importarTickets(InputStream entrada, LongConsumer consumidor) throws Exception {
+        // Canal sobre el flujo
+        ReadableByteChannel canal = Channels.newChannel(entrada);
+        ByteBuffer buf = crearBuffer();
+
+        // Cabecera
+        buf.limit(TAM_CABECERA);
+        if (leerHasta(canal, buf) < TAM_CABECERA) {
+            throw new Exception("Datos corruptos - Cabecera incompleta");
+        }
+        buf.flip();
+        int registrosBloque = validarCabecera(buf);
+
+        // Versión 1 - Registros sin suma
+        if (registrosBloque == 0) {
+            return importarRegistros(canal, buf, consumidor);
+        }
+
+        // Versión 2 - Bloque a bloque
+        int tamBloque = calcularTamBloque(registrosBloque);
+        long num = 0;
+        for (long bloque = 0;; bloque++) {
+            // Bloque completo / Final parcial
+            buf.clear();
+            buf.limit(tamBloque);
+            int lon = leerHasta(canal, buf);
+            if (lon == 0) {
+                break;
+            }
+            buf.flip();
+
+            // Suma del bloque
+            int lonRegistros = lon - TAM_SUMA;
+            if (lonRegistros <= 0 || lonRegistros % TAM_REGISTRO != 0) {
+                throw new Exception("Datos corruptos - Registro " + num + " incompleto");
+            }
+            comprobarSuma(buf, lonRegistros, bloque, TAM_CABECERA + bloque * tamBloque);
+
+            // Registros > Tickets
+            for (int i = 0; i < lonRegistros / TAM_REGISTRO; i++) {
+                consumidor.accept(validarRegistro(buf.getLong(), num));
+                num++;
+            }
+
+            // Bloque parcial - Fin de flujo
+            if (lon < tamBloque) {
+                break;
+            }
+        }
+
+        // Devolver Tickets
+        return num;
+    }
+
+    // Tickets > Flujo TBIN
+    @Override
+    public long exportarTickets(PrimitiveIterator.OfLong tickets, OutputStream salida) throws Exception {
+        long num = escribirTickets(tickets, Channels.newChannel(salida), true, REGISTROS_BLOQUE);
+        salida.flush();
+        return num;
+    }
+
+    // Fichero TBIN > Tickets - Canal de fichero directo
+    @Override
+    public long importarTickets(String fichero, LongConsumer consumidor) throws Exception {
+        try (FileChannel canal = FileChannel.open(Paths.get(fichero), StandardOpenOption.READ)) {
+            return leerRango(canal, 0, contarRegistros(canal), consumidor);
+        }
+    }
+
+    // Tickets > Fichero TBIN - Canal de fichero directo
+    @Override
+    public long exportarTickets(PrimitiveIterator.OfLong tickets, String fichero) throws Exception {
+        try (FileChannel canal = FileChannel.open(Paths.get(fichero),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            return escribirTickets(tickets, canal, true, REGISTROS_BLOQUE);
+        }
+    }
+
+    // Tickets > Final del fichero TBIN (Lo crea si no existe) - Versión del fichero
+    public long anyadirTickets(PrimitiveIterator.OfLong tickets, String fichero) throws Exception {
+        try (FileChannel canal = FileChannel.open(Paths.get(fichero),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Fichero nuevo - Cabecera
+            if (canal.size() == 0) {
+                return escribirTickets(tickets, canal, true, REGISTROS_BLOQUE);
+            }
+
+            // Versión 1 - Tras el último registro completo
+            int registrosBloque = leerCabecera(canal);
+            long total = contarRegistros(canal, registrosBloque);
+            if (registrosBloque == 0) {
+                canal.position(calcularDesplazamiento(total, 0));
+                return escribirTickets(tickets, canal, false, 0);
+            }
+
+            // Versión 2 - Bloque final parcial reescrito con su suma
+            long iniBloque = total / registrosBloque * registrosBloque;
+            long[] previos = new long[(int) (total - iniBloque)];
+            int[] num = new int[1];
+            leerRango(canal, iniBloque, total, ticket -> previos[num[0]++] = ticket);
+            canal.position(calcularDesplazamiento(iniBloque, registrosBloque));
+            PrimitiveIterator.OfLong todos = LongStream.concat(LongStream.of(previos),
+                    StreamSupport.longStream(Spliterators.spliteratorUnknownSize(
+                            tickets, Spliterator.ORDERED), false)).iterator();
+            return escribirTickets(todos, canal, false, registrosBloque) - previos.length;
+        }
+    }
+
+    // Fichero TBIN > Bloques corruptos - Suma y rangos por bloque en paralelo
+    @Override
+    public InformeVerificacion verificar(String fichero, ForkJoinPool pool,
+            IProgreso progreso) throws Exception {
+        try (FileChannel canal = FileChannel.open(Paths.get(fichero), StandardOpenOption.READ)) {
+            // Estructura del fichero
+            int registrosBloque = leerCabecera(canal);
+            long total = contarRegistros(canal, registrosBloque);
+
+            // Cortes por bloque - Versión 1 en tramos de REGISTROS_BLOQUE sin suma
+            int registrosCorte = registrosBloque == 0 ? REGISTROS_BLOQUE : registrosBloque;
+            int bloques = (int) ((total + registrosCorte - 1) / registrosCorte);
+            long[] cortes = new long[bloques + 1];
+            for (int i = 0; i < bloques; i++) {
+                cortes[i] = calcularDesplazamiento((long) i * registrosCorte, registrosBloque);
+            }
+            cortes[bloques] = canal.size();
+
+            // Verificación paralela
+            boolean suma = registrosBloque != 0;
+            return new VerificacionParalela(pool, progreso).verificar(canal, cortes,
+                    buf -> comprobarBloque(buf, suma));
+        }
+    }
+
+    // Cabecera del fichero > Registros por bloque (0 = Versión 1 sin sumas)
+    public static int leerCabecera(FileChannel canal) throws Exception {
+        ByteBuffer buf = ByteBuffer.allocate(TAM_CABECERA).order(ByteOrder.LITTLE_ENDIAN);
+        leerCompleto(canal, buf, 0);
+        buf.flip();
+        return validarCabecera(buf);
+    }
+
+    // Número de registros del fichero (Valida la cabecera)
+    public static long contarRegistros(FileChannel canal) throws Exception {
+        return contarRegistros(canal, leerCabecera(canal));
+    }
+
+    // Número de registros del fichero - Estructura de bloques
+    public static long contarRegistros(FileChannel canal, int registrosBloque) throws Exception {
+        long datos = canal.size() - TAM_CABECERA;
+
+        // Versión 1 - Registros completos
+        if (registrosBloque == 0) {
+            if (datos % TAM_REGISTRO != 0) {
+                throw new Exception("Datos corruptos - Registro final incompleto");
+            }
+            return datos / TAM_REGISTRO;
+        }
+
+        // Versión 2 - Bloques completos + Final parcial
+        long tamBloque = calcularTamBloque(registrosBloque);
+        long resto = datos % tamBloque;
+        if (resto != 0 && (resto <= TAM_SUMA || (resto - TAM_SUMA) % TAM_REGISTRO != 0)) {
+            throw new Exception("Datos corruptos - Bloque final incompleto en byte "
+                    + (canal.size() - resto));
+        }
+        return datos / tamBloque * registrosBloque + (resto == 0 ? 0 : (resto - TAM_SUMA) / TAM_REGISTRO);
+    }
+
+    // Registro N > Ticket - Acceso directo O(1) (Sin comprobar la suma del bloque)
+    public static long leerRegistro(FileChannel canal, long registro) throws Exception {
+        ByteBuffer buf = ByteBuffer.allocate(TAM_REGISTRO).order(ByteOrder.LITTLE_ENDIAN);
+        leerCompleto(canal, buf, calcularDesplazamiento(registro, leerCabecera(canal)));
+        return validarRegistro(buf.getLong(0), registro);
+    }
+
+    // Registros [ini, fin) > Tickets - Lecturas posicionales (Canal compartible)
+    public static long leerRango(FileChannel canal, long ini, long fin, LongConsumer consumidor) throws Exception {
+        // Estructura del fichero
+        int registrosBloque = leerCabecera(canal);
+        long total = contarRegistros(canal, registrosBloque);
+
+        ByteBuffer buf = crearBuffer();
+        long registro = ini;
+        while (registro < fin) {
+            // Tramo de registros - Bloque completo con su suma / Parte de bloque
+            int num;
+            boolean completo;
+            if (registrosBloque == 0) {
+                num = (int) Math.min(TAM_BUFFER_CANAL / TAM_REGISTRO, fin - registro);
+                completo = false;
+            } else {
+                long iniBloque = registro / registrosBloque * registrosBloque;
+                long finBloque = Math.min(iniBloque + registrosBloque, total);
+                num = (int) (Math.min(finBloque, fin) - registro);
+                completo = registro == iniBloque && finBloque <= fin;
+            }
+            long desplazamiento = calcularDesplazamiento(registro, registrosBloque);
+            buf.clear();
+            buf.limit(num * TAM_REGISTRO + (completo ? TAM_SUMA : 0));
+            leerCompleto(canal, buf, desplazamiento);
+            buf.flip();
+
+            // Suma del bloque completo
+            if (completo) {
+                comprobarSuma(buf, num * TAM_REGISTRO, registro / registrosBloque, desplazamiento);
+            }
+
+            // Registros > Tickets
+            for (int i = 0; i < num; i++) {
+                consumidor.accept(validarRegistro(buf.getLong(), registro++));
+            }
+        }
+
+        // Devolver Tickets
+        return fin - ini;
+    }
+
+    // Registro > Posición en el fichero - Estructura de bloques
+    public static long calcularDesplazamiento(long registro, int registrosBloque) {
+        if (registrosBloque == 0) {
+            return TAM_CABECERA + registro * TAM_REGISTRO;
+        }
+        return TAM_CABECERA
+                + registro / registrosBloque * calcularTamBloque(registrosBloque)
+                + registro % registrosBloque * TAM_REGISTRO;
+    }
+
+    // Bytes de un bloque completo
+    public static int calcularTamBloque(int registrosBloque) {
+        return registrosBloque * TAM_REGISTRO + TAM_SUMA;
+    }
+
+    // Tickets > Canal - Cabecera opcional / Bloques con suma (0 = Versión 1)
+    private static long escribirTickets(PrimitiveIterator.OfLong tickets,
+            WritableByteChannel canal, boolean cabecera, int registrosBloque) throws IOException {
+        ByteBuffer buf = crearBuffer();
+
+        // Cabecera
+        if (cabecera) {
+            buf.putInt(MAGIC);
+            buf.putInt(VERSION);
+            buf.putInt(TAM_REGISTRO);
+            buf.putInt(registrosBloque);
+        }
+
+        // Versión 1 - Volcado por buffer lleno
+        long num = 0;
+        if (registrosBloque == 0) {
+            while (tickets.hasNext()) {
+                if (buf.remaining() < TAM_REGISTRO) {
+                    volcar(canal, buf);
+                }
+                buf.putLong(TicketCodec.comprobarTicket(tickets.nextLong()));
+                num++;
+            }
+            volcar(canal, buf);
+            return num;
+        }
+
+        // Versión 2 - Bloque completo en el buffer + Suma
+        int tamBloque = calcularTamBloque(registrosBloque);
+        while (tickets.hasNext()) {
+            if (buf.remaining() < tamBloque) {
+                volcar(canal, buf);
+            }
+            int ini = buf.position();
+            int registros = 0;
+            while (registros < registrosBloque && tickets.hasNext()) {
+                buf.putLong(TicketCodec.comprobarTicket(tickets.nextLong()));
+                registros++;
+            }
+            buf.putInt(calcularSuma(buf, ini, registros * TAM_REGISTRO));
+            num += registros;
+        }
+        volcar(canal, buf);
+
+        // Devolver Tickets
+        return num;
+    }
+
+    // Flujo versión 1 > Tickets - Registros hasta fin de flujo
+    private static long importarRegistros(ReadableByteChannel canal, ByteBuffer buf,
+            LongConsumer consumidor) throws Exception {
+        long num = 0;
+        boolean fin = false;
+        buf.clear();
+        while (!fin) {
+            fin = canal.read(buf) < 0;
+            buf.flip();
+            while (buf.remaining() >= TAM_REGISTRO) {
+                consumidor.accept(validarRegistro(buf.getLong(), num));
+                num++;
+            }
+            if (fin && buf.hasRemaining()) {
+                throw new Exception("Datos corruptos - Registro " + num + " incompleto");
+            }
+            buf.compact();
+        }
+
+        // Devolver Tickets
+        return num;
+    }
+
+    // Buffer > Canal
+    private static void volcar(WritableByteChannel canal, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            canal.write(buf);
+        }
+        buf.clear();
+    }
+
+    // Canal [pos, pos + remaining) > Buffer
+    private static void leerCompleto(FileChannel canal, ByteBuffer buf, long pos) throws Exception {
+        while (buf.hasRemaining()) {
+            if (canal.read(buf, pos + buf.position()) < 0) {
+                throw new Exception("Datos corruptos - Fin de fichero en byte " + (pos + buf.position()));
+            }
+        }
+    }
+
+    // Flujo > Buffer hasta llenarlo o fin de flujo - Bytes leídos
+    private static int leerHasta(ReadableByteChannel canal, ByteBuffer buf) throws IOException {
+        int lon = 0;
+        while (buf.hasRemaining()) {
+            int num = canal.read(buf);
+            if (num < 0) {
+                break;
+            }
+            lon += num;
+        }
+        return lon;
+    }
+
+    // Cabecera TBIN > Registros por bloque (0 = Versión 1)
+    private static int validarCabecera(ByteBuffer buf) throws Exception {
+        if (buf.getInt() != MAGIC) {
+            throw new Exception("Datos corruptos - Fichero TBIN no reconocido");
+        }
+        int version = buf.getInt();
+        if (version < 1 || version > VERSION) {
+            throw new Exception("Datos corruptos - Versión TBIN " + version + " no soportada");
+        }
+        if (buf.getInt() != TAM_REGISTRO) {
+            throw new Exception("Datos corruptos - Tamaño de registro no soportado");
+        }
+        int registrosBloque = buf.getInt();
+        if (version == 1) {
+            return 0;
+        }
+        if (registrosBloque <= 0 || registrosBloque > MAX_REGISTROS_BLOQUE) {
+            throw new Exception("Datos corruptos - Bloques de " + registrosBloque + " registros no soportados");
+        }
+        return registrosBloque;
+    }
+
+    // Bloque leído (Registros + Suma opcional) > Suma y rangos correctos
+    private static boolean comprobarBloque(ByteBuffer buf, boolean suma) {
+        int ini = buf.position();
+        int lonRegistros = buf.remaining() - (suma ? TAM_SUMA : 0);
+        if (lonRegistros <= 0 || lonRegistros % TAM_REGISTRO != 0) {
+            return false;
+        }
+        if (suma && calcularSuma(buf, ini, lonRegistros) != buf.getInt(ini + lonRegistros)) {
+            return false;
+        }
+        for (int i = ini; i < ini + lonRegistros; i += TAM_REGISTRO) {
+            if (!TicketCodec.validarTicket(buf.getLong(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Suma del bloque en el buffer (Registros seguidos de la suma)
+    private static void comprobarSuma(ByteBuffer buf, int lonRegistros,
+            long bloque, long desplazamiento) throws Exception {
+        int ini = buf.position();
+        if (calcularSuma(buf, ini, lonRegistros) != buf.getInt(ini + lonRegistros)) {
+            throw new Exception(String.format(
+                    "Datos corruptos - Bloque %d en byte %d", bloque, desplazamiento));
+        }
+    }
+
+    // CRC32 de [ini, ini + lon) del buffer - Sin mover su posición
+    private static int calcularSuma(ByteBuffer buf, int ini, int lon) {
+        ByteBuffer datos = buf.duplicate();
+        datos.limit(ini + lon);
+        datos.position(ini);
+        CRC32 crc = CRCS.get();
+        crc.reset();
+        crc.update(datos);
+        return (int) crc.getValue();
+    }
+
+    // Rangos del ticket leído
+    private static long validarRegistro(long ticket, long registro) throws Exception {
+        if (!TicketCodec.validarTicket(ticket)) {
+            throw new Exception("Datos corruptos - Registro " + registro);
+        }
+        return ticket;
+    }
+
+    // Buffer directo de canal del hilo
+    private static ByteBuffer crearBuffer() {
+        ByteBuffer buf = BUFFERS.get();
+        buf.clear();
+        return buf;
+    }
+
+    // Nombre del formato
+    @Override
+    public String getFormato() {
+        return "TBIN";
+    }
+
+    // Extensiones de fichero
+    @Override
+    public String[] getExtensiones() {
+        return new String[]{"tbin"};
+    }
+
+    // Cabecera > Confianza
+    @Override
+    public int reconocer(byte[] cabecera, int longitud) {
+        // Bytes mágicos - MAGIC little endian
+        return UtilesFormato.empiezaPor(cabecera, longitud, 0, "TBIN")
+                ? RECONOCIDO_MAGIC
+                : NO_RECONOCIDO;
+    }
+}
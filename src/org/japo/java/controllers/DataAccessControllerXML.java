@@ -0,0 +1,281 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.controllers;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import org.japo.java.interfaces.IDataAccessStreamController;
+import org.japo.java.interfaces.IFormatoFichero;
+import org.japo.java.libraries.FechaCodec;
+import org.japo.java.libraries.TicketCodec;
+import org.japo.java.libraries.UtilesFormato;
+import org.japo.java.models.Model;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class DataAccessControllerXML implements IDataAccessStreamController, IFormatoFichero {
+
+    // Documento de tickets
+    public static final String XML_TICKETS = "tickets";
+    public static final String XML_TICKET = "ticket";
+
+    // Atributos del ticket - Orden de Model.POS_*
+    public static final String[] XML_CAMPOS = {
+        "numero", "serie", "fraccion", "fecha", "precio"};
+
+    // Documento SXML (XMLEncoder) - Solo lectura
+    public static final String SXML_RAIZ = "java";
+    public static final String SXML_OBJETO = "object";
+    public static final String SXML_PROPIEDAD = "void";
+    public static final String SXML_ATR_PROPIEDAD = "property";
+    public static final String SXML_TEXTO = "string";
+
+    // Factorías StAX - Seguras entre hilos una vez configuradas
+    private static final XMLInputFactory FACTORIA_ENTRADA = XMLInputFactory.newInstance();
+    private static final XMLOutputFactory FACTORIA_SALIDA = XMLOutputFactory.newInstance();
+
+    static {
+        // Sin DTD ni entidades externas
+        FACTORIA_ENTRADA.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        FACTORIA_ENTRADA.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        FACTORIA_ENTRADA.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    // Fichero XML / SXML > Modelo - Primer ticket
+    @Override
+    public void importarModelo(Model model, String fichero) throws Exception {
+        // Primer ticket del fichero
+        long[] ticket = new long[1];
+        int[] num = new int[1];
+        importarTickets(fichero, t -> {
+            if (num[0]++ == 0) {
+                ticket[0] = t;
+            }
+        });
+
+        // Fichero vacío
+        if (num[0] == 0) {
+            throw new Exception("Datos corruptos");
+        }
+
+        // Ticket > Modelo
+        TicketCodec.desempaquetar(ticket[0], model);
+    }
+
+    // Modelo > Fichero XML - Documento de un ticket
+    @Override
+    public void exportarModelo(Model model, String fichero) throws Exception {
+        exportarTickets(LongStream.of(TicketCodec.empaquetar(model)).iterator(), fichero);
+    }
+
+    // Flujo XML / SXML > Tickets - Según el elemento raíz
+    @Override
+    public long importarTickets(InputStream entrada, LongConsumer consumidor) throws Exception {
+        XMLStreamReader lector = FACTORIA_ENTRADA.createXMLStreamReader(entrada);
+        try {
+            // Elemento raíz
+            lector.nextTag();
+            switch (lector.getLocalName()) {
+                case XML_TICKETS:
+                    return importarTickets(lector, consumidor);
+                case SXML_RAIZ:
+                    return importarObjetos(lector, consumidor);
+                default:
+                    throw new Exception("Datos corruptos - Raíz " + lector.getLocalName());
+            }
+        } catch (XMLStreamException e) {
+            throw new Exception("Datos corruptos - " + e.getMessage(), e);
+        } finally {
+            // No cierra el flujo recibido
+            lector.close();
+        }
+    }
+
+    // Tickets > Flujo XML
+    @Override
+    public long exportarTickets(PrimitiveIterator.OfLong tickets, OutputStream salida) throws Exception {
+        XMLStreamWriter escritor = FACTORIA_SALIDA.createXMLStreamWriter(salida, "UTF-8");
+
+        // Apertura del documento
+        escritor.writeStartDocument("UTF-8", "1.0");
+        escritor.writeCharacters("\n");
+        escritor.writeStartElement(XML_TICKETS);
+
+        // Un elemento vacío por ticket
+        long num = 0;
+        while (tickets.hasNext()) {
+            long ticket = TicketCodec.comprobarTicket(tickets.nextLong());
+            escritor.writeCharacters("\n  ");
+            escritor.writeEmptyElement(XML_TICKET);
+            escritor.writeAttribute(XML_CAMPOS[Model.POS_NUMERO],
+                    TicketCodec.formatearNumero(TicketCodec.numero(ticket)));
+            escritor.writeAttribute(XML_CAMPOS[Model.POS_SERIE],
+                    Integer.toString(TicketCodec.serie(ticket)));
+            escritor.writeAttribute(XML_CAMPOS[Model.POS_FRACCION],
+                    Integer.toString(TicketCodec.fraccion(ticket)));
+            escritor.writeAttribute(XML_CAMPOS[Model.POS_FECHA],
+                    FechaCodec.formatear(TicketCodec.fecha(ticket)));
+            escritor.writeAttribute(XML_CAMPOS[Model.POS_PRECIO],
+                    Integer.toString(TicketCodec.precio(ticket)));
+            num++;
+        }
+
+        // Cierre del documento - No cierra el flujo recibido
+        escritor.writeCharacters("\n");
+        escritor.writeEndElement();
+        escritor.writeEndDocument();
+        escritor.flush();
+        escritor.close();
+        salida.flush();
+
+        // Devolver Tickets
+        return num;
+    }
+
+    // Documento <tickets> > Tickets
+    private static long importarTickets(XMLStreamReader lector, LongConsumer consumidor) throws Exception {
+        String[] campos = new String[Model.NUM_ITEMS];
+
+        // Elementos <ticket> hasta el cierre de la raíz
+        long num = 0;
+        while (lector.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            // Elemento
+            if (!XML_TICKET.equals(lector.getLocalName())) {
+                throw new Exception("Datos corruptos - Ticket " + num);
+            }
+
+            // Atributos > Campos
+            for (int i = 0; i < Model.NUM_ITEMS; i++) {
+                campos[i] = lector.getAttributeValue(null, XML_CAMPOS[i]);
+                if (campos[i] == null) {
+                    throw new Exception("Datos corruptos - Ticket " + num);
+                }
+            }
+            long ticket = empaquetar(campos, num);
+
+            // Cierre del elemento
+            if (lector.nextTag() != XMLStreamConstants.END_ELEMENT) {
+                throw new Exception("Datos corruptos - Ticket " + num);
+            }
+            consumidor.accept(ticket);
+            num++;
+        }
+
+        // Devolver Tickets
+        return num;
+    }
+
+    // Documento SXML > Tickets - <object> con propiedades <void> opcionales
+    private static long importarObjetos(XMLStreamReader lector, LongConsumer consumidor) throws Exception {
+        String[] campos = new String[Model.NUM_ITEMS];
+
+        // Objetos hasta el cierre de la raíz
+        long num = 0;
+        while (lector.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (!SXML_OBJETO.equals(lector.getLocalName())) {
+                throw new Exception("Datos corruptos - Objeto " + num);
+            }
+
+            // Valores por defecto del modelo - XMLEncoder los omite
+            campos[Model.POS_NUMERO] = Model.DEF_NUMERO;
+            campos[Model.POS_SERIE] = Model.DEF_SERIE;
+            campos[Model.POS_FRACCION] = Model.DEF_FRACCION;
+            campos[Model.POS_FECHA] = Model.DEF_FECHA;
+            campos[Model.POS_PRECIO] = Model.DEF_PRECIO;
+
+            // Propiedades hasta el cierre del objeto
+            while (lector.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                int pos = buscarCampo(lector.getAttributeValue(null, SXML_ATR_PROPIEDAD));
+                if (!SXML_PROPIEDAD.equals(lector.getLocalName()) || pos < 0 ||
+                        lector.nextTag() != XMLStreamConstants.START_ELEMENT ||
+                        !SXML_TEXTO.equals(lector.getLocalName())) {
+                    throw new Exception("Datos corruptos - Objeto " + num);
+                }
+                campos[pos] = lector.getElementText();
+
+                // Cierre de la propiedad
+                if (lector.nextTag() != XMLStreamConstants.END_ELEMENT) {
+                    throw new Exception("Datos corruptos - Objeto " + num);
+                }
+            }
+            consumidor.accept(empaquetar(campos, num));
+            num++;
+        }
+
+        // Devolver Tickets
+        return num;
+    }
+
+    // Nombre de propiedad > Posición del campo / -1
+    private static int buscarCampo(String nombre) {
+        for (int i = 0; i < XML_CAMPOS.length; i++) {
+            if (XML_CAMPOS[i].equals(nombre)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Campos > Ticket validado
+    private static long empaquetar(String[] campos, long num) throws Exception {
+        try {
+            return TicketCodec.empaquetar(
+                    campos[Model.POS_NUMERO],
+                    campos[Model.POS_SERIE],
+                    campos[Model.POS_FRACCION],
+                    campos[Model.POS_FECHA],
+                    campos[Model.POS_PRECIO]);
+        } catch (Exception e) {
+            throw new Exception("Datos corruptos - Ticket " + num, e);
+        }
+    }
+
+    // Nombre del formato
+    @Override
+    public String getFormato() {
+        return "XML";
+    }
+
+    // Extensiones de fichero
+    @Override
+    public String[] getExtensiones() {
+        return new String[]{"xml"};
+    }
+
+    // Cabecera > Confianza
+    @Override
+    public int reconocer(byte[] cabecera, int longitud) {
+        // Documento XML - Propio (<tickets>) o SXML legible
+        int pos = UtilesFormato.saltarBlancos(cabecera, longitud, 0);
+        if (UtilesFormato.obtenerByte(cabecera, longitud, pos) != '<') {
+            return NO_RECONOCIDO;
+        }
+        return UtilesFormato.contiene(cabecera, longitud, "<" + XML_TICKETS)
+                ? RECONOCIDO
+                : RECONOCIDO_DEBIL;
+    }
+}
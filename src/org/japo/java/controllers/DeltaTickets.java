@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.controllers;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.PrimitiveIterator;
+import org.japo.java.libraries.TicketCodec;
+import org.japo.java.models.TicketStore;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class DeltaTickets {
+
+    // Extensión de los ficheros de cambios
+    public static final String EXTENSION = "tdlt";
+
+    // Cabecera - Magic + Versión + Filas base + Filas final + Registros
+    public static final int MAGIC = 0x544C4454;     // TDLT
+    public static final int VERSION = 1;
+    public static final int TAM_CABECERA = 24;
+
+    // Registro - Fila + Ticket empaquetado (Little endian)
+    public static final int TAM_REGISTRO = Integer.BYTES + Long.BYTES;
+
+    // Buffer directo de canal - Múltiplo del registro
+    public static final int TAM_BUFFER_CANAL = TAM_REGISTRO << 16;
+
+    // Filas modificadas del almacén > Fichero de cambios
+    public static long exportarDelta(TicketStore store, String fichero) throws Exception {
+        // Instantánea de filas
+        int filasBase = store.getFilasBase();
+        int filas = store.getFilas();
+        long registros = store.getNumModificadas();
+
+        try (FileChannel canal = FileChannel.open(Paths.get(fichero),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(TAM_BUFFER_CANAL).order(ByteOrder.LITTLE_ENDIAN);
+
+            // Cabecera
+            buf.putInt(MAGIC);
+            buf.putInt(VERSION);
+            buf.putInt(filasBase);
+            buf.putInt(filas);
+            buf.putLong(registros);
+
+            // Registros - Filas en orden ascendente
+            PrimitiveIterator.OfInt it = store.iteradorModificadas();
+            while (it.hasNext()) {
+                if (buf.remaining() < TAM_REGISTRO) {
+                    volcar(canal, buf);
+                }
+                int fila = it.nextInt();
+                buf.putInt(fila);
+                buf.putLong(store.obtener(fila));
+            }
+            volcar(canal, buf);
+        }
+
+        // Devolver Registros
+        return registros;
+    }
+
+    // Fichero de cambios > Almacén - Debe estar en las filas base del fichero
+    public static long aplicarDelta(String fichero, TicketStore store) throws Exception {
+        try (FileChannel canal = FileChannel.open(Paths.get(fichero), StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(TAM_BUFFER_CANAL).order(ByteOrder.LITTLE_ENDIAN);
+
+            // Cabecera
+            buf.limit(TAM_CABECERA);
+            leerCompleto(canal, buf);
+            buf.flip();
+            if (buf.getInt() != MAGIC) {
+                throw new Exception("Datos corruptos - Fichero de cambios no reconocido");
+            }
+            int version = buf.getInt();
+            if (version < 1 || version > VERSION) {
+                throw new Exception("Datos corruptos - Versión de cambios " + version + " no soportada");
+            }
+            int filasBase = buf.getInt();
+            int filas = buf.getInt();
+            long registros = buf.getLong();
+
+            // Base del fichero
+            if (store.getFilas() != filasBase) {
+                throw new Exception(String.format(
+                        "Cambios sobre %,d tickets - La base tiene %,d", filasBase, store.getFilas()));
+            }
+            if (filas < filasBase || canal.size() != TAM_CABECERA + registros * TAM_REGISTRO) {
+                throw new Exception("Datos corruptos - Fichero de cambios incompleto");
+            }
+
+            // Registros > Sobrescrituras + Altas en orden
+            long num = 0;
+            while (num < registros) {
+                buf.clear();
+                buf.limit((int) Math.min(TAM_BUFFER_CANAL, (registros - num) * TAM_REGISTRO));
+                leerCompleto(canal, buf);
+                buf.flip();
+                while (buf.hasRemaining()) {
+                    int fila = buf.getInt();
+                    long ticket = buf.getLong();
+                    if (!TicketCodec.validarTicket(ticket) || fila < 0 || fila >= filas
+                            || fila > store.getFilas()) {
+                        throw new Exception("Datos corruptos - Cambio " + num);
+                    }
+                    if (fila == store.getFilas()) {
+                        store.insertar(ticket);
+                    } else {
+                        store.actualizar(fila, ticket);
+                    }
+                    num++;
+                }
+            }
+
+            // Filas finales
+            if (store.getFilas() != filas) {
+                throw new Exception("Datos corruptos - Faltan altas en el fichero de cambios");
+            }
+
+            // Devolver Registros
+            return num;
+        }
+    }
+
+    // Buffer > Canal
+    private static void volcar(FileChannel canal, ByteBuffer buf) throws Exception {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            canal.write(buf);
+        }
+        buf.clear();
+    }
+
+    // Canal (posición actual) > Buffer completo
+    private static void leerCompleto(FileChannel canal, ByteBuffer buf) throws Exception {
+        while (buf.hasRemaining()) {
+            if (canal.read(buf) < 0) {
+                throw new Exception("Datos corruptos - Fin de fichero de cambios");
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.controllers;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntUnaryOperator;
+import org.japo.java.libraries.TicketCodec;
+import org.japo.java.models.IndiceFechas;
+import org.japo.java.models.InformeEscrutinio;
+import org.japo.java.models.TablaPremios;
+import org.japo.java.models.TicketStore;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class Escrutinio {
+
+    // Filas por tarea hoja
+    public static final int UMBRAL_FILAS = 1 << 16;
+
+    // Referencias
+    private final TablaPremios tabla;
+    private final IntUnaryOperator puntoVenta;
+    private final int numPuntosVenta;
+    private final ForkJoinPool pool;
+
+    // Constructor Parametrizado - Un único punto de venta
+    public Escrutinio(TablaPremios tabla) {
+        this(tabla, fila -> 0, 1, ForkJoinPool.commonPool());
+    }
+
+    // Constructor Parametrizado - Fila > Punto de venta [0, numPuntosVenta)
+    public Escrutinio(TablaPremios tabla, IntUnaryOperator puntoVenta,
+            int numPuntosVenta, ForkJoinPool pool) {
+        this.tabla = tabla;
+        this.puntoVenta = puntoVenta;
+        this.numPuntosVenta = numPuntosVenta;
+        this.pool = pool;
+    }
+
+    // Almacén > Informe del sorteo
+    public InformeEscrutinio procesar(TicketStore store) {
+        // Instantánea de filas
+        int filas = store.getFilas();
+
+        // Escrutinio paralelo
+        long ini = System.nanoTime();
+        InformeEscrutinio informe = pool.invoke(new Tarea(store, null, 0, filas));
+        informe.setNanos(System.nanoTime() - ini);
+
+        // Devolver Informe
+        return informe;
+    }
+
+    // Almacén + Índice > Informe del sorteo - Solo las filas de la fecha del sorteo
+    public InformeEscrutinio procesar(TicketStore store, IndiceFechas indice) {
+        // Filas del sorteo en el índice
+        int fecha = tabla.getResultado().getFecha();
+
+        // Escrutinio paralelo
+        long ini = System.nanoTime();
+        InformeEscrutinio informe = pool.invoke(new Tarea(store, indice,
+                indice.obtenerInicio(fecha), indice.obtenerFin(fecha)));
+        informe.setNanos(System.nanoTime() - ini);
+
+        // Devolver Informe
+        return informe;
+    }
+
+    // Tarea de escrutinio - [filaIni, filaFin) del almacén o del índice
+    private class Tarea extends RecursiveTask<InformeEscrutinio> {
+
+        private final TicketStore store;
+        private final IndiceFechas indice;
+        private final int filaIni;
+        private final int filaFin;
+
+        Tarea(TicketStore store, IndiceFechas indice, int filaIni, int filaFin) {
+            this.store = store;
+            this.indice = indice;
+            this.filaIni = filaIni;
+            this.filaFin = filaFin;
+        }
+
+        @Override
+        protected InformeEscrutinio compute() {
+            // Tarea hoja
+            if (filaFin - filaIni <= UMBRAL_FILAS) {
+                return escrutar();
+            }
+
+            // División en mitades
+            int med = (filaIni + filaFin) >>> 1;
+            Tarea izq = new Tarea(store, indice, filaIni, med);
+            Tarea der = new Tarea(store, indice, med, filaFin);
+            izq.fork();
+            InformeEscrutinio informe = der.compute();
+            informe.fusionar(izq.join());
+
+            // Devolver Informe
+            return informe;
+        }
+
+        // Acumulador propio de la tarea
+        private InformeEscrutinio escrutar() {
+            InformeEscrutinio informe = new InformeEscrutinio(numPuntosVenta);
+            int fecha = tabla.getResultado().getFecha();
+            for (int i = filaIni; i < filaFin; i++) {
+                int fila = indice != null ? indice.obtenerFila(i) : i;
+                long ticket = store.obtener(fila);
+                if (TicketCodec.fecha(ticket) == fecha) {
+                    informe.acumular(tabla,
+                            TicketCodec.numero(ticket),
+                            TicketCodec.serie(ticket),
+                            TicketCodec.fraccion(ticket),
+                            puntoVenta.applyAsInt(fila));
+                }
+            }
+            informe.contarProcesados(filaFin - filaIni);
+            return informe;
+        }
+    }
+}
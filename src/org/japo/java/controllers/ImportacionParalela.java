@@ -0,0 +1,265 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.controllers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import org.japo.java.interfaces.ILectorRango;
+import org.japo.java.interfaces.IProgreso;
+import org.japo.java.models.InformeImportacion;
+import org.japo.java.models.TicketStore;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class ImportacionParalela {
+
+    // Tamaño objetivo de bloque
+    public static final long TAM_BLOQUE = 8L << 20;
+
+    // Bloques mínimos por hilo - Reparto de carga
+    public static final int BLOQUES_HILO = 4;
+
+    // Referencias
+    private final ILectorRango formato;
+    private final ForkJoinPool pool;
+    private final boolean ordenado;
+    private final IProgreso progreso;
+
+    // Constructor Parametrizado - Orden original
+    public ImportacionParalela(ILectorRango formato) {
+        this(formato, ForkJoinPool.commonPool(), true, IProgreso.NINGUNO);
+    }
+
+    // Constructor Parametrizado
+    public ImportacionParalela(ILectorRango formato, ForkJoinPool pool,
+            boolean ordenado, IProgreso progreso) {
+        this.formato = formato;
+        this.pool = pool;
+        this.ordenado = ordenado;
+        this.progreso = progreso;
+    }
+
+    // Fichero por líneas > Almacén
+    public InformeImportacion importar(String fichero, TicketStore store) throws Exception {
+        try (FileChannel canal = FileChannel.open(Paths.get(fichero), StandardOpenOption.READ)) {
+            // Tamaño y bloques
+            long tam = canal.size();
+            int num = (int) Math.max(
+                    (long) pool.getParallelism() * BLOQUES_HILO,
+                    (tam + TAM_BLOQUE - 1) / TAM_BLOQUE);
+            long[] cortes = calcularCortes(canal, tam, num);
+
+            // Tareas por bloque
+            InformeImportacion informe = new InformeImportacion();
+            int filasIni = store.getFilas();
+            Fusion fusion = new Fusion(store, cortes.length - 1);
+            AtomicLong hechos = new AtomicLong();
+            List<Bloque> bloques = new ArrayList<>();
+            for (int i = 0; i < cortes.length - 1; i++) {
+                bloques.add(new Bloque(i, canal, cortes[i], cortes[i + 1],
+                        tam, fusion, informe, hechos));
+            }
+
+            // Ejecución paralela
+            long ini = System.nanoTime();
+            try {
+                pool.invoke(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        invokeAll(bloques);
+                    }
+                });
+            } catch (RuntimeException e) {
+                // Almacén como estaba - Sin filas de los bloques ya fusionados
+                fusion.descartar(filasIni);
+
+                // Excepción original del bloque
+                Throwable causa = e;
+                while (causa instanceof RuntimeException && causa.getCause() != null) {
+                    causa = causa.getCause();
+                }
+                throw causa instanceof Exception ? (Exception) causa : e;
+            }
+            informe.setNanos(System.nanoTime() - ini);
+
+            // Devolver Informe
+            return informe;
+        }
+    }
+
+    // Cortes alineados al inicio de línea - [cortes[i], cortes[i + 1])
+    public static long[] calcularCortes(FileChannel canal, long tam, int num) throws IOException {
+        // Cortes nominales
+        long[] cortes = new long[num + 1];
+        cortes[num] = tam;
+
+        // Alineación a líneas
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        for (int i = 1; i < num; i++) {
+            long pos = Math.max(cortes[i - 1], tam * i / num);
+            cortes[i] = pos == 0 ? 0 : alinear(canal, pos, tam, buf);
+        }
+
+        // Sin bloques vacíos
+        int n = 1;
+        for (int i = 1; i <= num; i++) {
+            if (cortes[i] > cortes[n - 1]) {
+                cortes[n++] = cortes[i];
+            }
+        }
+        return Arrays.copyOf(cortes, Math.max(n, 2));
+    }
+
+    // Primer inicio de línea en pos o posterior
+    private static long alinear(FileChannel canal, long pos, long tam, ByteBuffer buf) throws IOException {
+        // Byte anterior a pos incluido - pos ya alineada si sigue a '\n'
+        long actual = pos - 1;
+        while (actual < tam) {
+            buf.clear();
+            int leidos = canal.read(buf, actual);
+            if (leidos <= 0) {
+                break;
+            }
+            for (int i = 0; i < leidos; i++) {
+                if (buf.get(i) == '\n') {
+                    return actual + i + 1;
+                }
+            }
+            actual += leidos;
+        }
+        return tam;
+    }
+
+    // Fusión de bloques en el almacén - Escritor único
+    private class Fusion {
+
+        private final TicketStore store;
+        private final long[][] pendientes;
+        private final int[] tamanyos;
+        private int siguiente;
+        private boolean descartada;
+
+        Fusion(TicketStore store, int num) {
+            this.store = store;
+            this.pendientes = new long[num][];
+            this.tamanyos = new int[num];
+        }
+
+        synchronized void publicar(int indice, long[] tickets, int num) {
+            // Importación fallida - Bloques que terminan tras el error
+            if (descartada) {
+                return;
+            }
+
+            // Sin orden - Inserción inmediata
+            if (!ordenado) {
+                insertar(tickets, num);
+                return;
+            }
+
+            // Orden original - Inserción del prefijo completo
+            pendientes[indice] = tickets;
+            tamanyos[indice] = num;
+            while (siguiente < pendientes.length && pendientes[siguiente] != null) {
+                insertar(pendientes[siguiente], tamanyos[siguiente]);
+                pendientes[siguiente] = null;
+                siguiente++;
+            }
+        }
+
+        // Fallo de un bloque > Almacén con sus filas iniciales
+        synchronized void descartar(int filasIni) {
+            descartada = true;
+            store.truncar(filasIni);
+        }
+
+        private void insertar(long[] tickets, int num) {
+            for (int i = 0; i < num; i++) {
+                store.insertar(tickets[i]);
+            }
+        }
+    }
+
+    // Tarea de importación de un bloque
+    private class Bloque extends RecursiveAction {
+
+        private final int indice;
+        private final FileChannel canal;
+        private final long ini;
+        private final long fin;
+        private final long tam;
+        private final Fusion fusion;
+        private final InformeImportacion informe;
+        private final AtomicLong hechos;
+
+        // Tickets del bloque
+        private long[] tickets;
+        private int num;
+
+        Bloque(int indice, FileChannel canal, long ini, long fin, long tam,
+                Fusion fusion, InformeImportacion informe, AtomicLong hechos) {
+            this.indice = indice;
+            this.canal = canal;
+            this.ini = ini;
+            this.fin = fin;
+            this.tam = tam;
+            this.fusion = fusion;
+            this.informe = informe;
+            this.hechos = hechos;
+        }
+
+        @Override
+        protected void compute() {
+            long t0 = System.nanoTime();
+            tickets = new long[(int) Math.max(16, (fin - ini) / 28)];
+            try {
+                // Bloque > Tickets
+                formato.importarRango(canal, ini, fin, this::anyadir);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+
+            // Estadísticas del trabajador
+            informe.acumularBloque(Thread.currentThread().getName(),
+                    num, fin - ini, System.nanoTime() - t0);
+
+            // Fusión
+            fusion.publicar(indice, tickets, num);
+
+            // Progreso
+            progreso.actualizar(hechos.addAndGet(fin - ini), tam);
+        }
+
+        // Ticket > Bloque
+        private void anyadir(long ticket) {
+            if (num == tickets.length) {
+                tickets = Arrays.copyOf(tickets, num * 2);
+            }
+            tickets[num++] = ticket;
+        }
+    }
+}
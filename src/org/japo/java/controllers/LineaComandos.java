@@ -0,0 +1,555 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.controllers;
+
+import java.io.FileReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongConsumer;
+import org.japo.java.interfaces.IDataAccessController;
+import org.japo.java.interfaces.IDataAccessStreamController;
+import org.japo.java.interfaces.ILectorRango;
+import org.japo.java.interfaces.IProgreso;
+import org.japo.java.interfaces.IVerificable;
+import org.japo.java.libraries.FechaCodec;
+import org.japo.java.libraries.TicketCodec;
+import org.japo.java.models.BitmapVentas;
+import org.japo.java.models.CacheSorteos;
+import org.japo.java.models.IndiceFechas;
+import org.japo.java.models.InformeEscrutinio;
+import org.japo.java.models.InformeImportacion;
+import org.japo.java.models.InformeSimulacion;
+import org.japo.java.models.InformeVerificacion;
+import org.japo.java.models.Model;
+import org.japo.java.models.ResultadoSorteo;
+import org.japo.java.models.TablaPremios;
+import org.japo.java.models.TicketStore;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class LineaComandos {
+
+    // Códigos de salida
+    public static final int SALIDA_OK = 0;
+    public static final int SALIDA_ERROR = 1;
+    public static final int SALIDA_USO = 2;
+
+    // Simulación - Sorteos por defecto y percentiles del informe
+    public static final int DEF_SIMULACIONES = 1_000_000;
+    public static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    // Órdenes
+    public static final String ORD_IMPORTAR = "importar";
+    public static final String ORD_CONVERTIR = "convertir";
+    public static final String ORD_VALIDAR = "validar";
+    public static final String ORD_VERIFICAR = "verificar";
+    public static final String ORD_ESCRUTINIO = "escrutinio";
+    public static final String ORD_PREMIOS = "premios";
+    public static final String ORD_SIMULAR = "simular";
+    public static final String ORD_INFORME = "informe";
+    public static final String ORD_FORMATOS = "formatos";
+    public static final String ORD_DELTA = "delta";
+    public static final String ORD_FUSIONAR = "fusionar";
+    public static final String ORD_VENDIDOS = "vendidos";
+    public static final String ORD_CONSULTAR = "consultar";
+
+    // Ayuda
+    public static final String USO = String.join(System.lineSeparator(),
+            "Uso: java -jar LoteriaNacional.jar <orden> [argumentos]",
+            "  importar   <fichero> <almacen>            Tickets > almacén mapeado (LNTS)",
+            "  convertir  <origen> <destino> [formato]   Conversión entre formatos (.gz comprimido)",
+            "  validar    <fichero>                      Validación de todos los tickets",
+            "  verificar  <fichero>                      Sumas de control por bloque en paralelo",
+            "  escrutinio <fichero> <sorteo>...          Premios de los tickets de cada sorteo",
+            "  premios    <fichero> <dir. sorteos>       Premio de cada ticket en el sorteo de su fecha",
+            "  simular    <fichero> <sorteo> [n] [s]     Distribución del pago en n sorteos aleatorios",
+            "  informe    <fichero>                      Tickets e importe por fecha",
+            "  delta      <base> <nuevo> <cambios>       Tickets cambiados o nuevos (TDLT)",
+            "  fusionar   <base> <cambios> <destino> [f] Base + cambios TDLT > destino",
+            "  vendidos   <fichero> <dir. vendidos>      Décimos vendidos por sorteo (vendidos_aaaammdd.lnb)",
+            "  consultar  <dir> <fecha> <numero> <s> <f> Décimo vendido en el sorteo de la fecha",
+            "  formatos                                  Formatos disponibles");
+
+    // Referencias
+    private final RegistroFormatos formatos;
+    private final PrintStream salida;
+    private final PrintStream errores;
+
+    // Constructor Predeterminado - Consola
+    public LineaComandos() {
+        this(RegistroFormatos.getInstancia(), System.out, System.err);
+    }
+
+    // Constructor Parametrizado
+    public LineaComandos(RegistroFormatos formatos, PrintStream salida, PrintStream errores) {
+        this.formatos = formatos;
+        this.salida = salida;
+        this.errores = errores;
+    }
+
+    // Argumentos > Código de salida
+    public int ejecutar(String[] args) {
+        try {
+            // Orden
+            String orden = args.length > 0 ? args[0] : "";
+            switch (orden) {
+                case ORD_IMPORTAR:
+                    if (args.length != 3) {
+                        break;
+                    }
+                    importar(args[1], args[2]);
+                    return SALIDA_OK;
+                case ORD_CONVERTIR:
+                    if (args.length != 3 && args.length != 4) {
+                        break;
+                    }
+                    convertir(args[1], args[2], args.length == 4 ? args[3] : null);
+                    return SALIDA_OK;
+                case ORD_VALIDAR:
+                    if (args.length != 2) {
+                        break;
+                    }
+                    validar(args[1]);
+                    return SALIDA_OK;
+                case ORD_VERIFICAR:
+                    if (args.length != 2) {
+                        break;
+                    }
+                    verificar(args[1]);
+                    return SALIDA_OK;
+                case ORD_ESCRUTINIO:
+                    if (args.length < 3) {
+                        break;
+                    }
+                    escrutar(args[1], Arrays.copyOfRange(args, 2, args.length));
+                    return SALIDA_OK;
+                case ORD_PREMIOS:
+                    if (args.length != 3) {
+                        break;
+                    }
+                    comprobarPremios(args[1], args[2]);
+                    return SALIDA_OK;
+                case ORD_SIMULAR:
+                    if (args.length < 3 || args.length > 5) {
+                        break;
+                    }
+                    simular(args[1], args[2],
+                            args.length > 3 ? Integer.parseInt(args[3]) : DEF_SIMULACIONES,
+                            args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime());
+                    return SALIDA_OK;
+                case ORD_INFORME:
+                    if (args.length != 2) {
+                        break;
+                    }
+                    informar(args[1]);
+                    return SALIDA_OK;
+                case ORD_DELTA:
+                    if (args.length != 4) {
+                        break;
+                    }
+                    calcularDelta(args[1], args[2], args[3]);
+                    return SALIDA_OK;
+                case ORD_FUSIONAR:
+                    if (args.length != 4 && args.length != 5) {
+                        break;
+                    }
+                    fusionar(args[1], args[2], args[3], args.length == 5 ? args[4] : null);
+                    return SALIDA_OK;
+                case ORD_VENDIDOS:
+                    if (args.length != 3) {
+                        break;
+                    }
+                    generarVendidos(args[1], args[2]);
+                    return SALIDA_OK;
+                case ORD_CONSULTAR:
+                    if (args.length != 6) {
+                        break;
+                    }
+                    consultarVendido(args[1], args[2], Integer.parseInt(args[3]),
+                            Integer.parseInt(args[4]), Integer.parseInt(args[5]));
+                    return SALIDA_OK;
+                case ORD_FORMATOS:
+                    salida.println(String.join(" ", formatos.getFormatos()));
+                    return SALIDA_OK;
+                default:
+            }
+
+            // Orden o argumentos no válidos
+            errores.println(USO);
+            return SALIDA_USO;
+        } catch (Exception e) {
+            // Mensaje - Operación NO
+            errores.println("Error: " + e.getMessage());
+            return SALIDA_ERROR;
+        }
+    }
+
+    // Fichero > Almacén mapeado - Bloques verificados antes de tocar el almacén
+    public void importar(String fichero, String almacen) throws Exception {
+        IDataAccessController dac = formatos.detectar(fichero);
+        if (dac instanceof IVerificable) {
+            comprobar((IVerificable) dac, fichero);
+        }
+        try (TicketStore store = new TicketStore(Paths.get(almacen))) {
+            long ini = System.nanoTime();
+            int filasIni = store.getFilas();
+
+            // Formato por líneas - Importación paralela
+            if (dac instanceof ILectorRango) {
+                InformeImportacion informe = new ImportacionParalela((ILectorRango) dac)
+                        .importar(fichero, store);
+                salida.printf("Importados %,d tickets (%s) - %.1f MB/s%n",
+                        informe.getTickets(), RegistroFormatos.obtenerFormato(dac),
+                        informe.obtenerMBSegundo());
+            } else {
+                try {
+                    cargar(dac, fichero, store);
+                } catch (Exception e) {
+                    // Almacén como estaba
+                    store.truncar(filasIni);
+                    throw e;
+                }
+                salida.printf("Importados %,d tickets (%s)%n",
+                        store.getFilas() - filasIni, RegistroFormatos.obtenerFormato(dac));
+            }
+
+            // Persistencia
+            store.sincronizar();
+            salida.printf("Almacén %s - %,d filas - %.0f tickets/s%n", almacen, store.getFilas(),
+                    (store.getFilas() - filasIni) * 1e9 / (System.nanoTime() - ini));
+        }
+    }
+
+    // Fichero > Fichero en otro formato
+    public void convertir(String origen, String destino, String formato) throws Exception {
+        // Formatos
+        IDataAccessController dacOrigen = formatos.detectar(origen);
+        IDataAccessController dacDestino = formato != null
+                ? formatos.obtener(formato)
+                : formatos.obtenerPorExtension(destino, null);
+        if (dacDestino == null) {
+            throw new Exception("Formato de destino desconocido - " + destino);
+        }
+
+        // Modelo único
+        if (!(dacDestino instanceof IDataAccessStreamController)) {
+            Model model = new Model();
+            dacOrigen.importarModelo(model, origen);
+            dacDestino.exportarModelo(model, destino);
+            salida.printf("Convertido 1 ticket (%s > %s)%n",
+                    RegistroFormatos.obtenerFormato(dacOrigen),
+                    RegistroFormatos.obtenerFormato(dacDestino));
+            return;
+        }
+
+        // Tickets empaquetados en memoria fuera del heap
+        try (TicketStore store = new TicketStore()) {
+            cargar(dacOrigen, origen, store);
+            long num = ((IDataAccessStreamController) dacDestino).exportarTickets(store.iterador(), destino);
+            salida.printf("Convertidos %,d tickets (%s > %s)%n", num,
+                    RegistroFormatos.obtenerFormato(dacOrigen),
+                    RegistroFormatos.obtenerFormato(dacDestino));
+        }
+    }
+
+    // Fichero > Tickets válidos (Error en el primero que no lo sea)
+    public void validar(String fichero) throws Exception {
+        IDataAccessController dac = formatos.detectar(fichero);
+        long num;
+        if (dac instanceof IDataAccessStreamController) {
+            num = ((IDataAccessStreamController) dac).importarTickets(fichero, ticket -> {
+            });
+        } else {
+            dac.importarModelo(new Model(), fichero);
+            num = 1;
+        }
+        salida.printf("Fichero válido - %,d tickets (%s)%n", num, RegistroFormatos.obtenerFormato(dac));
+    }
+
+    // Fichero > Bloques corruptos por desplazamiento (Error si hay alguno)
+    public void verificar(String fichero) throws Exception {
+        IDataAccessController dac = formatos.detectar(fichero);
+        if (!(dac instanceof IVerificable)) {
+            throw new Exception("El formato " + RegistroFormatos.obtenerFormato(dac)
+                    + " no tiene sumas de control por bloque");
+        }
+        InformeVerificacion informe = comprobar((IVerificable) dac, fichero);
+        salida.printf("Fichero íntegro - %,d bloques (%s) - %.1f MB/s%n", informe.getBloques(),
+                RegistroFormatos.obtenerFormato(dac), informe.obtenerMBSegundo());
+    }
+
+    // Verificación paralela - Bloques corruptos > Errores + Excepción
+    private InformeVerificacion comprobar(IVerificable dac, String fichero) throws Exception {
+        InformeVerificacion informe = dac.verificar(fichero, ForkJoinPool.commonPool(), IProgreso.NINGUNO);
+        if (!informe.isValido()) {
+            for (Map.Entry<Long, Long> e : informe.getCorruptos().entrySet()) {
+                errores.printf("Bloque %,d corrupto en byte %,d%n", e.getKey(), e.getValue());
+            }
+            throw new Exception(informe.obtenerPrimerError());
+        }
+        return informe;
+    }
+
+    // Fichero + Resultados de los sorteos > Informe de premios por sorteo
+    public void escrutar(String fichero, String... sorteos) throws Exception {
+        // Resultados de los sorteos
+        ResultadoSorteo[] resultados = new ResultadoSorteo[sorteos.length];
+        for (int i = 0; i < sorteos.length; i++) {
+            resultados[i] = cargarSorteo(sorteos[i]);
+        }
+
+        // Tickets > Índice por fecha > Escrutinio de cada sorteo
+        try (TicketStore store = new TicketStore()) {
+            cargar(formatos.detectar(fichero), fichero, store);
+            IndiceFechas indice = new IndiceFechas(store);
+            for (ResultadoSorteo resultado : resultados) {
+                InformeEscrutinio informe = new Escrutinio(new TablaPremios(resultado))
+                        .procesar(store, indice);
+
+                // Informe
+                salida.printf("Sorteo %s - %,d tickets, %,d del sorteo, %,d premiados%n",
+                        FechaCodec.formatear(resultado.getFecha()), store.getFilas(),
+                        informe.getEscrutados(), informe.getPremiados());
+                for (int cat = 0; cat < ResultadoSorteo.NUM_CATEGORIAS; cat++) {
+                    if (informe.getPagoCategoria(cat) > 0) {
+                        salida.printf("  %-22s %,18.2f%n", ResultadoSorteo.NOMBRE_CATEGORIA[cat],
+                                informe.getPagoCategoria(cat) / 100.0);
+                    }
+                }
+                salida.printf("  %-22s %,18.2f%n", "TOTAL", informe.getTotal() / 100.0);
+            }
+        }
+    }
+
+    // Fichero de tickets reclamados + Directorio de resultados > Premios
+    public void comprobarPremios(String fichero, String directorio) throws Exception {
+        // Resultados bajo demanda - sorteo_aaaammdd.properties
+        Path dir = Paths.get(directorio);
+        CacheSorteos cache = new CacheSorteos(fecha -> {
+            Path sorteo = ResultadoSorteo.obtenerFichero(dir, fecha);
+            if (!Files.exists(sorteo)) {
+                throw new Exception("Sorteo no disponible - " + sorteo);
+            }
+            return cargarSorteo(sorteo.toString());
+        });
+
+        // Tickets > Premio en el sorteo de su fecha
+        long[] acumulado = new long[2];
+        long num = recorrer(formatos.detectar(fichero), fichero, ticket -> {
+            long premio;
+            try {
+                premio = cache.consultarPremio(ticket);
+            } catch (Exception e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+            if (premio > 0) {
+                salida.printf("  %s serie %3d fracción %2d - %s %,18.2f%n",
+                        TicketCodec.formatearNumero(TicketCodec.numero(ticket)),
+                        TicketCodec.serie(ticket), TicketCodec.fraccion(ticket),
+                        FechaCodec.formatear(TicketCodec.fecha(ticket)), premio / 100.0);
+                acumulado[0]++;
+                acumulado[1] += premio;
+            }
+        });
+
+        // Informe
+        salida.printf("%s - %,d tickets, %,d premiados - TOTAL %,.2f%n",
+                fichero, num, acumulado[0], acumulado[1] / 100.0);
+        salida.printf("Sorteos - %,d consultas, %,d cargados, %,d descartados (%.1f%% aciertos)%n",
+                cache.getAciertos() + cache.getFallos(), cache.getFallos(),
+                cache.getExpulsiones(), cache.obtenerTasaAciertos() * 100);
+    }
+
+    // Fichero + Estructura de premios > Distribución del pago en sorteos aleatorios
+    public void simular(String fichero, String sorteo, int num, long semilla) throws Exception {
+        if (num < 1) {
+            throw new Exception("Número de sorteos no válido: " + num);
+        }
+        ResultadoSorteo modelo = cargarSorteo(sorteo);
+
+        // Tickets del sorteo > Simulación
+        try (TicketStore store = new TicketStore()) {
+            cargar(formatos.detectar(fichero), fichero, store);
+            SimuladorSorteos simulador = new SimuladorSorteos(modelo, store);
+            InformeSimulacion informe = simulador.simular(num, semilla);
+
+            // Informe
+            salida.printf("Sorteo %s - %,d décimos, %,d sorteos simulados (semilla %d) - %,.0f sorteos/s%n",
+                    FechaCodec.formatear(modelo.getFecha()), simulador.getDecimos(),
+                    informe.getSimulaciones(), informe.getSemilla(), informe.obtenerSorteosSegundo());
+            salida.printf("  %-22s %,18.2f%n", "media", informe.getMedia() / 100);
+            salida.printf("  %-22s %,18.2f%n", "desviación", informe.getDesviacion() / 100);
+            salida.printf("  %-22s %,18.2f%n", "mínimo", informe.getMinimo() / 100.0);
+            for (double percentil : PERCENTILES) {
+                String nombre = percentil == (long) percentil
+                        ? Long.toString((long) percentil) : Double.toString(percentil);
+                salida.printf("  %-22s %,18.2f%n", "percentil " + nombre,
+                        informe.obtenerPercentil(percentil) / 100.0);
+            }
+            salida.printf("  %-22s %,18.2f%n", "máximo", informe.getMaximo() / 100.0);
+        }
+    }
+
+    // Fichero > Tickets e importe por fecha de sorteo
+    public void informar(String fichero) throws Exception {
+        // Acumulados por día epoch - Tickets + Importe
+        Map<Integer, long[]> fechas = new TreeMap<>();
+        IDataAccessController dac = formatos.detectar(fichero);
+        long num = recorrer(dac, fichero, ticket -> {
+            long[] acumulado = fechas.computeIfAbsent(TicketCodec.fecha(ticket), f -> new long[2]);
+            acumulado[0]++;
+            acumulado[1] += TicketCodec.precio(ticket);
+        });
+
+        // Informe
+        salida.printf("%s - %,d tickets (%s)%n", fichero, num, RegistroFormatos.obtenerFormato(dac));
+        salida.printf("  %-10s %14s %16s%n", "FECHA", "TICKETS", "IMPORTE");
+        for (Map.Entry<Integer, long[]> e : fechas.entrySet()) {
+            salida.printf("  %-10s %,14d %,16d%n",
+                    FechaCodec.formatear(e.getKey()), e.getValue()[0], e.getValue()[1]);
+        }
+    }
+
+    // Base + Fichero nuevo > Fichero de cambios (Posición a posición)
+    public void calcularDelta(String base, String nuevo, String cambios) throws Exception {
+        try (TicketStore store = new TicketStore()) {
+            // Base como estado confirmado
+            cargar(formatos.detectar(base), base, store);
+            int filasBase = store.getFilas();
+            store.limpiarModificadas();
+
+            // Fichero nuevo - Sobrescribe las filas que cambian y añade el resto
+            int[] fila = new int[1];
+            recorrer(formatos.detectar(nuevo), nuevo, ticket -> {
+                if (fila[0] == store.getFilas()) {
+                    store.insertar(ticket);
+                } else if (store.obtener(fila[0]) != ticket) {
+                    store.actualizar(fila[0], ticket);
+                }
+                fila[0]++;
+            });
+            if (fila[0] < filasBase) {
+                throw new Exception(String.format(
+                        "El fichero nuevo tiene %,d tickets - La base tiene %,d", fila[0], filasBase));
+            }
+
+            // Cambios > Fichero
+            long num = DeltaTickets.exportarDelta(store, cambios);
+            salida.printf("Cambios %s - %,d tickets de %,d (%,d nuevos)%n",
+                    cambios, num, store.getFilas(), store.getFilas() - filasBase);
+        }
+    }
+
+    // Base + Fichero de cambios > Fichero destino
+    public void fusionar(String base, String cambios, String destino, String formato) throws Exception {
+        // Formatos - Destino explícito / Por extensión / El de la base
+        IDataAccessController dacBase = formatos.detectar(base);
+        IDataAccessController dacDestino = formato != null
+                ? formatos.obtener(formato)
+                : formatos.obtenerPorExtension(destino, dacBase);
+        if (!(dacDestino instanceof IDataAccessStreamController)) {
+            throw new Exception("El formato " + RegistroFormatos.obtenerFormato(dacDestino)
+                    + " no admite varios tickets");
+        }
+
+        try (TicketStore store = new TicketStore()) {
+            // Base + Cambios
+            cargar(dacBase, base, store);
+            long num = DeltaTickets.aplicarDelta(cambios, store);
+
+            // Almacén > Destino
+            ((IDataAccessStreamController) dacDestino).exportarTickets(store.iterador(), destino);
+            salida.printf("Fusionados %,d cambios - %s %,d tickets (%s)%n", num, destino,
+                    store.getFilas(), RegistroFormatos.obtenerFormato(dacDestino));
+        }
+    }
+
+    // Fichero > Bitmap de décimos vendidos de cada sorteo (vendidos_aaaammdd.lnb)
+    public void generarVendidos(String fichero, String directorio) throws Exception {
+        Path dir = Paths.get(directorio);
+        Files.createDirectories(dir);
+        try (TicketStore store = new TicketStore()) {
+            // Tickets > Índice por fecha > Un bitmap por sorteo
+            cargar(formatos.detectar(fichero), fichero, store);
+            IndiceFechas indice = new IndiceFechas(store);
+            for (int fecha : indice.getFechas()) {
+                BitmapVentas bitmap = BitmapVentas.construir(store, indice, fecha);
+                Path destino = BitmapVentas.obtenerFichero(dir, fecha);
+                bitmap.guardar(destino);
+                salida.printf("Sorteo %s - %,d décimos vendidos de %,d tickets > %s%n",
+                        FechaCodec.formatear(fecha), bitmap.getCardinalidad(),
+                        indice.contar(fecha), destino);
+            }
+        }
+    }
+
+    // Directorio de vendidos + Fecha + Décimo > Vendido / No vendido
+    public void consultarVendido(String directorio, String fecha,
+            int numero, int serie, int fraccion) throws Exception {
+        int dia = FechaCodec.convertir(fecha);
+        if (dia == FechaCodec.NO_VALIDA) {
+            throw new Exception("Fecha no válida - " + fecha);
+        }
+        Path fichero = BitmapVentas.obtenerFichero(Paths.get(directorio), dia);
+        if (!Files.exists(fichero)) {
+            throw new Exception("Sorteo sin ventas registradas - " + fichero);
+        }
+        BitmapVentas bitmap = BitmapVentas.cargar(fichero);
+        salida.printf("%s serie %d fracción %d - %s en el sorteo %s%n",
+                TicketCodec.formatearNumero(numero), serie, fraccion,
+                bitmap.contiene(numero, serie, fraccion) ? "vendido" : "no vendido",
+                FechaCodec.formatear(dia));
+    }
+
+    // Fichero de propiedades > Resultado del sorteo
+    private static ResultadoSorteo cargarSorteo(String fichero) throws Exception {
+        Properties prp = new Properties();
+        try (Reader entrada = new FileReader(fichero)) {
+            prp.load(entrada);
+        }
+        return ResultadoSorteo.cargar(prp);
+    }
+
+    // Fichero > Almacén
+    private static void cargar(IDataAccessController dac, String fichero, TicketStore store) throws Exception {
+        recorrer(dac, fichero, store::insertar);
+    }
+
+    // Fichero > Tickets - Formatos sin flujo como un único modelo
+    private static long recorrer(IDataAccessController dac, String fichero,
+            LongConsumer consumidor) throws Exception {
+        // Formato por flujo
+        if (dac instanceof IDataAccessStreamController) {
+            return ((IDataAccessStreamController) dac).importarTickets(fichero, consumidor);
+        }
+
+        // Modelo único
+        Model model = new Model();
+        dac.importarModelo(model, fichero);
+        consumidor.accept(TicketCodec.empaquetar(model));
+        return 1;
+    }
+}
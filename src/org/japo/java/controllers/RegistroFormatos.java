@@ -0,0 +1,205 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.controllers;
+
+import java.io.FileInputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import org.japo.java.interfaces.IDataAccessController;
+import org.japo.java.interfaces.IDataAccessStreamController;
+import org.japo.java.interfaces.IFormatoFichero;
+import org.japo.java.libraries.EntradaComprimida;
+import org.japo.java.libraries.UtilesFormato;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class RegistroFormatos {
+
+    // Bytes examinados para la detección
+    public static final int TAM_CABECERA = 512;
+
+    // Prefijo de las clases de persistencia - Nombre de formato implícito
+    public static final String PREFIJO_CLASE = "DataAccessController";
+
+    // Controladores por formato (Orden de registro) y por extensión
+    private final Map<String, IDataAccessController> formatos;
+    private final Map<String, IDataAccessController> extensiones;
+
+    // Registro compartido - Carga diferida
+    private static class Compartido {
+
+        private static final RegistroFormatos INSTANCIA = new RegistroFormatos();
+    }
+
+    // Constructor Predeterminado - Implementaciones de META-INF/services
+    public RegistroFormatos() {
+        this(ServiceLoader.load(IDataAccessController.class));
+    }
+
+    // Constructor Parametrizado - Instancias reutilizadas en cada uso
+    public RegistroFormatos(Iterable<? extends IDataAccessController> controladores) {
+        Map<String, IDataAccessController> porFormato = new LinkedHashMap<>();
+        Map<String, IDataAccessController> porExtension = new HashMap<>();
+        for (IDataAccessController dac : controladores) {
+            // Primer registro de cada formato
+            String formato = obtenerFormato(dac);
+            if (porFormato.putIfAbsent(formato, dac) != null) {
+                continue;
+            }
+
+            // Extensiones
+            if (dac instanceof IFormatoFichero) {
+                for (String ext : ((IFormatoFichero) dac).getExtensiones()) {
+                    porExtension.putIfAbsent(ext, dac);
+                }
+            } else {
+                porExtension.putIfAbsent(formato.toLowerCase(), dac);
+            }
+        }
+
+        // Registro inmutable - Seguro entre hilos
+        this.formatos = Collections.unmodifiableMap(porFormato);
+        this.extensiones = Collections.unmodifiableMap(porExtension);
+    }
+
+    // Registro compartido
+    public static RegistroFormatos getInstancia() {
+        return Compartido.INSTANCIA;
+    }
+
+    // Nombres de los formatos registrados
+    public Set<String> getFormatos() {
+        return formatos.keySet();
+    }
+
+    // Nombre de formato > Controlador - Sufijo .GZ = Versión comprimida
+    public IDataAccessController obtener(String formato) throws Exception {
+        String nombre = formato.toUpperCase();
+        if (nombre.endsWith(DataAccessControllerGZ.SUFIJO_FORMATO)) {
+            return DataAccessControllerGZ.comprimir(obtener(
+                    nombre.substring(0, nombre.length() - DataAccessControllerGZ.SUFIJO_FORMATO.length())));
+        }
+        IDataAccessController dac = formatos.get(nombre);
+        if (dac == null) {
+            throw new Exception("Formato no soportado - " + formato);
+        }
+        return dac;
+    }
+
+    // Extensión del fichero > Controlador / Predeterminado - .gz sobre la extensión previa
+    public IDataAccessController obtenerPorExtension(String fichero, IDataAccessController predeterminado) {
+        String extension = UtilesFormato.obtenerExtension(fichero);
+        if (!extension.equals(DataAccessControllerGZ.EXTENSION)) {
+            return extensiones.getOrDefault(extension, predeterminado);
+        }
+
+        // Fichero comprimido - Formato de la extensión interna
+        IDataAccessController interno = extensiones.get(UtilesFormato.obtenerExtension(
+                fichero.substring(0, fichero.length() - extension.length() - 1)));
+        return interno instanceof IDataAccessStreamController
+                ? new DataAccessControllerGZ((IDataAccessStreamController) interno)
+                : predeterminado;
+    }
+
+    // Fichero existente > Controlador - Cabecera y, en su defecto, extensión
+    public IDataAccessController detectar(String fichero) throws Exception {
+        // Cabecera
+        byte[] cabecera = new byte[TAM_CABECERA];
+        int longitud = UtilesFormato.leerCabecera(fichero, cabecera);
+
+        // Fichero comprimido - Formato de los datos descomprimidos
+        if (EntradaComprimida.esComprimido(cabecera, longitud)) {
+            return detectarComprimido(fichero, cabecera);
+        }
+        IDataAccessController dac = reconocer(cabecera, longitud);
+
+        // Extensión
+        if (dac == null) {
+            dac = obtenerPorExtension(fichero, null);
+        }
+        if (dac == null) {
+            throw new Exception("Formato no reconocido - " + fichero);
+        }
+
+        // Devolver Controlador
+        return dac;
+    }
+
+    // Fichero comprimido > Controlador - Cabecera descomprimida y, en su defecto, extensión
+    private IDataAccessController detectarComprimido(String fichero, byte[] cabecera) throws Exception {
+        // Primeros bytes descomprimidos
+        int longitud = 0;
+        try (EntradaComprimida entrada = new EntradaComprimida(new FileInputStream(fichero))) {
+            int num = 0;
+            while (longitud < cabecera.length && num >= 0) {
+                num = entrada.read(cabecera, longitud, cabecera.length - longitud);
+                longitud += Math.max(num, 0);
+            }
+        }
+        IDataAccessController interno = reconocer(cabecera, longitud);
+
+        // Extensión interna
+        if (interno == null) {
+            IDataAccessController dac = obtenerPorExtension(fichero, null);
+            interno = dac instanceof DataAccessControllerGZ
+                    ? ((DataAccessControllerGZ) dac).getInterno()
+                    : null;
+        }
+        if (interno == null) {
+            throw new Exception("Formato comprimido no reconocido - " + fichero);
+        }
+
+        // Devolver Controlador
+        return DataAccessControllerGZ.comprimir(interno);
+    }
+
+    // Primeros bytes > Controlador de mayor confianza / null
+    public IDataAccessController reconocer(byte[] cabecera, int longitud) {
+        IDataAccessController elegido = null;
+        int maxima = IFormatoFichero.NO_RECONOCIDO;
+        for (IDataAccessController dac : formatos.values()) {
+            if (dac instanceof IFormatoFichero) {
+                // Empates - Gana el registrado antes
+                int confianza = ((IFormatoFichero) dac).reconocer(cabecera, longitud);
+                if (confianza > maxima) {
+                    maxima = confianza;
+                    elegido = dac;
+                }
+            }
+        }
+        return elegido;
+    }
+
+    // Controlador > Nombre de formato
+    public static String obtenerFormato(IDataAccessController dac) {
+        // Formato declarado
+        if (dac instanceof IFormatoFichero) {
+            return ((IFormatoFichero) dac).getFormato().toUpperCase();
+        }
+
+        // Nombre de clase
+        String nombre = dac.getClass().getSimpleName();
+        return (nombre.startsWith(PREFIJO_CLASE)
+                ? nombre.substring(PREFIJO_CLASE.length())
+                : nombre).toUpperCase();
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.controllers;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import org.japo.java.libraries.TicketCodec;
+import org.japo.java.models.BitmapVentas;
+import org.japo.java.models.IndiceFechas;
+import org.japo.java.models.InformeSimulacion;
+import org.japo.java.models.ResultadoSorteo;
+import org.japo.java.models.TablaPremios;
+import org.japo.java.models.TicketStore;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class SimuladorSorteos {
+
+    // Sorteos por bloque - Un generador dividido por bloque
+    public static final int SORTEOS_BLOQUE = 1 << 14;
+
+    // Números por sorteo
+    private static final int NUM_NUMEROS = TablaPremios.NUM_NUMEROS;
+
+    // Estructura de premios - Importes del modelo y cantidad de extracciones
+    private final long[] importes = new long[ResultadoSorteo.NUM_CATEGORIAS];
+    private final boolean[] mayores = new boolean[3];
+    private final boolean especial;
+    private final int numTresCifras;
+    private final int numDosCifras;
+    private final int numReintegros;
+    private final int maxExtracciones;
+
+    // Inventario - Décimos vendidos por número y por terminación
+    private final int[] porNumero = new int[NUM_NUMEROS];
+    private final int[] porCentena = new int[NUM_NUMEROS / 100];
+    private final int[] porTresCifras = new int[1000];
+    private final int[] porDosCifras = new int[100];
+    private final int[] porCifra = new int[10];
+
+    // Inventario - Claves numero x serie x fraccion ordenadas (Premio especial)
+    private final int[] claves;
+
+    // Constructor Parametrizado - Tickets del almacén con la fecha del modelo
+    public SimuladorSorteos(ResultadoSorteo modelo, TicketStore store) {
+        this(modelo, store, null);
+    }
+
+    // Constructor Parametrizado - Tickets de la fecha del modelo por el índice
+    public SimuladorSorteos(ResultadoSorteo modelo, TicketStore store, IndiceFechas indice) {
+        // Estructura de premios
+        for (int cat = 0; cat < importes.length; cat++) {
+            importes[cat] = modelo.getImporte(cat);
+        }
+        mayores[0] = modelo.getPrimero() != ResultadoSorteo.SIN_PREMIO;
+        mayores[1] = modelo.getSegundo() != ResultadoSorteo.SIN_PREMIO;
+        mayores[2] = modelo.getTercero() != ResultadoSorteo.SIN_PREMIO;
+        especial = mayores[0]
+                && modelo.getSerieEspecial() != ResultadoSorteo.SIN_PREMIO
+                && modelo.getFraccionEspecial() != ResultadoSorteo.SIN_PREMIO;
+        numTresCifras = Math.min(porTresCifras.length, modelo.getTresCifras().length);
+        numDosCifras = Math.min(porDosCifras.length, modelo.getDosCifras().length);
+        numReintegros = Math.min(porCifra.length, modelo.getReintegros().length);
+        maxExtracciones = Math.max(mayores.length,
+                Math.max(numTresCifras, Math.max(numDosCifras, numReintegros)));
+
+        // Décimos del sorteo
+        int fecha = modelo.getFecha();
+        int num = indice != null ? indice.contar(fecha) : store.getFilas();
+        int[] lista = new int[num];
+        int[] pos = new int[1];
+        if (indice != null) {
+            indice.recorrer(store, fecha, ticket -> lista[pos[0]++] = acumular(ticket));
+        } else {
+            store.recorrer(ticket -> {
+                if (TicketCodec.fecha(ticket) == fecha) {
+                    lista[pos[0]++] = acumular(ticket);
+                }
+            });
+        }
+        claves = Arrays.copyOf(lista, pos[0]);
+        Arrays.sort(claves);
+    }
+
+    // Décimos del inventario
+    public int getDecimos() {
+        return claves.length;
+    }
+
+    // Sorteos aleatorios > Distribución del pago total
+    public InformeSimulacion simular(int num, long semilla) {
+        // Pago de cada sorteo
+        long[] pagos = new long[num];
+
+        // Un generador por bloque - Secuencia independiente del número de hilos
+        int bloques = (num + SORTEOS_BLOQUE - 1) / SORTEOS_BLOQUE;
+        SplittableRandom raiz = new SplittableRandom(semilla);
+        SplittableRandom[] generadores = new SplittableRandom[bloques];
+        for (int b = 0; b < bloques; b++) {
+            generadores[b] = raiz.split();
+        }
+
+        // Simulación paralela - Sin reservas de memoria por sorteo
+        long ini = System.nanoTime();
+        IntStream.range(0, bloques).parallel().forEach(b -> {
+            SplittableRandom aleatorio = generadores[b];
+            int[] extraidos = new int[maxExtracciones];
+            int fin = (int) Math.min(num, (long) (b + 1) * SORTEOS_BLOQUE);
+            for (int i = b * SORTEOS_BLOQUE; i < fin; i++) {
+                pagos[i] = simularSorteo(aleatorio, extraidos);
+            }
+        });
+
+        // Devolver Informe
+        return new InformeSimulacion(pagos, semilla, System.nanoTime() - ini);
+    }
+
+    // Sorteo aleatorio > Pago total del inventario (céntimos)
+    private long simularSorteo(SplittableRandom aleatorio, int[] extraidos) {
+        long pago = 0;
+
+        // Premios mayores - Números distintos
+        int primero = ResultadoSorteo.SIN_PREMIO;
+        int k = 0;
+        for (int i = 0; i < mayores.length; i++) {
+            if (mayores[i]) {
+                int n = extraer(aleatorio, NUM_NUMEROS, extraidos, k);
+                extraidos[k++] = n;
+                if (i == 0) {
+                    primero = n;
+                }
+                pago += pagarMayor(n, i);
+            }
+        }
+
+        // Premio especial al décimo del primero
+        if (especial) {
+            int clave = BitmapVentas.calcularClave(primero,
+                    aleatorio.nextInt(TicketCodec.MAX_SERIE + 1),
+                    aleatorio.nextInt(TicketCodec.MAX_FRACCION + 1));
+            pago += importes[ResultadoSorteo.CAT_ESPECIAL] * contarClave(clave);
+        }
+
+        // Terminaciones - Extracciones distintas
+        k = 0;
+        for (int i = 0; i < numTresCifras; i++) {
+            extraidos[k] = extraer(aleatorio, porTresCifras.length, extraidos, k);
+            pago += importes[ResultadoSorteo.CAT_TRES_CIFRAS] * porTresCifras[extraidos[k++]];
+        }
+        k = 0;
+        for (int i = 0; i < numDosCifras; i++) {
+            extraidos[k] = extraer(aleatorio, porDosCifras.length, extraidos, k);
+            pago += importes[ResultadoSorteo.CAT_DOS_CIFRAS] * porDosCifras[extraidos[k++]];
+        }
+
+        // Reintegros - Última cifra del primero y extracciones distintas
+        k = 0;
+        for (int i = 0; i < numReintegros; i++) {
+            extraidos[k] = i == 0 && primero != ResultadoSorteo.SIN_PREMIO
+                    ? primero % 10
+                    : extraer(aleatorio, porCifra.length, extraidos, k);
+            pago += importes[ResultadoSorteo.CAT_REINTEGRO] * porCifra[extraidos[k++]];
+        }
+
+        // Devolver Pago
+        return pago;
+    }
+
+    // Premio mayor - Número, aproximaciones (Circulares) y centena
+    private long pagarMayor(int numero, int orden) {
+        int anterior = (numero + NUM_NUMEROS - 1) % NUM_NUMEROS;
+        int posterior = (numero + 1) % NUM_NUMEROS;
+        return importes[ResultadoSorteo.CAT_PRIMERO + orden] * porNumero[numero]
+                + importes[ResultadoSorteo.CAT_APROX_PRIMERO + orden]
+                * (porNumero[anterior] + porNumero[posterior])
+                + importes[ResultadoSorteo.CAT_CENTENA_PRIMERO + orden]
+                * (porCentena[numero / 100] - porNumero[numero]);
+    }
+
+    // Valor aleatorio [0, limite) no extraído antes en [0, num)
+    private static int extraer(SplittableRandom aleatorio, int limite, int[] extraidos, int num) {
+        while (true) {
+            int valor = aleatorio.nextInt(limite);
+            int i = 0;
+            while (i < num && extraidos[i] != valor) {
+                i++;
+            }
+            if (i == num) {
+                return valor;
+            }
+        }
+    }
+
+    // Décimos vendidos con una clave
+    private int contarClave(int clave) {
+        int pos = Arrays.binarySearch(claves, clave);
+        if (pos < 0) {
+            return 0;
+        }
+        int ini = pos;
+        while (ini > 0 && claves[ini - 1] == clave) {
+            ini--;
+        }
+        int fin = pos + 1;
+        while (fin < claves.length && claves[fin] == clave) {
+            fin++;
+        }
+        return fin - ini;
+    }
+
+    // Ticket > Histogramas - Devuelve la clave del décimo
+    private int acumular(long ticket) {
+        int numero = TicketCodec.numero(ticket);
+        porNumero[numero]++;
+        porCentena[numero / 100]++;
+        porTresCifras[numero % 1000]++;
+        porDosCifras[numero % 100]++;
+        porCifra[numero % 10]++;
+        return BitmapVentas.calcularClave(ticket);
+    }
+}
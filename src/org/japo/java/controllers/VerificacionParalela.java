@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.controllers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import org.japo.java.interfaces.IProgreso;
+import org.japo.java.models.InformeVerificacion;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class VerificacionParalela {
+
+    // Tamaño objetivo de tarea - Varios bloques por tarea
+    public static final long TAM_TAREA = 8L << 20;
+
+    // Tareas mínimas por hilo - Reparto de carga
+    public static final int TAREAS_HILO = 4;
+
+    // Buffers directos reutilizados por hilo - Crecen hasta el mayor bloque
+    private static final ThreadLocal<ByteBuffer[]> BUFFERS = ThreadLocal.withInitial(() -> new ByteBuffer[1]);
+
+    // Referencias
+    private final ForkJoinPool pool;
+    private final IProgreso progreso;
+
+    // Constructor Parametrizado
+    public VerificacionParalela(ForkJoinPool pool, IProgreso progreso) {
+        this.pool = pool;
+        this.progreso = progreso;
+    }
+
+    // Bloques [cortes[i], cortes[i + 1]) > Informe - Comprobador seguro entre hilos
+    public InformeVerificacion verificar(FileChannel canal, long[] cortes,
+            Predicate<ByteBuffer> comprobador) throws Exception {
+        // Bloques y bytes
+        int numBloques = cortes.length - 1;
+        long bytes = numBloques > 0 ? cortes[numBloques] - cortes[0] : 0;
+        int numTareas = (int) Math.min(numBloques, Math.max(
+                (long) pool.getParallelism() * TAREAS_HILO,
+                (bytes + TAM_TAREA - 1) / TAM_TAREA));
+
+        // Tareas por tramo de bloques
+        InformeVerificacion informe = new InformeVerificacion();
+        AtomicLong hechos = new AtomicLong();
+        List<Tarea> tareas = new ArrayList<>();
+        for (int i = 0; i < numTareas; i++) {
+            tareas.add(new Tarea(canal, cortes, comprobador,
+                    (int) ((long) numBloques * i / numTareas),
+                    (int) ((long) numBloques * (i + 1) / numTareas),
+                    bytes, informe, hechos));
+        }
+
+        // Ejecución paralela
+        long ini = System.nanoTime();
+        try {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tareas);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Excepción original de la tarea
+            Throwable causa = e;
+            while (causa instanceof RuntimeException && causa.getCause() != null) {
+                causa = causa.getCause();
+            }
+            throw causa instanceof Exception ? (Exception) causa : e;
+        }
+        informe.setNanos(System.nanoTime() - ini);
+
+        // Devolver Informe
+        return informe;
+    }
+
+    // Tarea de verificación de un tramo de bloques
+    private class Tarea extends RecursiveAction {
+
+        private final FileChannel canal;
+        private final long[] cortes;
+        private final Predicate<ByteBuffer> comprobador;
+        private final int bloqueIni;
+        private final int bloqueFin;
+        private final long total;
+        private final InformeVerificacion informe;
+        private final AtomicLong hechos;
+
+        Tarea(FileChannel canal, long[] cortes, Predicate<ByteBuffer> comprobador,
+                int bloqueIni, int bloqueFin, long total,
+                InformeVerificacion informe, AtomicLong hechos) {
+            this.canal = canal;
+            this.cortes = cortes;
+            this.comprobador = comprobador;
+            this.bloqueIni = bloqueIni;
+            this.bloqueFin = bloqueFin;
+            this.total = total;
+            this.informe = informe;
+            this.hechos = hechos;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                for (int i = bloqueIni; i < bloqueFin; i++) {
+                    // Bloque > Buffer
+                    int lon = (int) (cortes[i + 1] - cortes[i]);
+                    ByteBuffer buf = obtenerBuffer(lon);
+                    leerCompleto(canal, buf, cortes[i]);
+                    buf.flip();
+
+                    // Comprobación
+                    if (!comprobador.test(buf)) {
+                        informe.anyadirCorrupto(i, cortes[i]);
+                    }
+                    informe.acumularBloque(lon);
+
+                    // Progreso
+                    progreso.actualizar(hechos.addAndGet(lon), total);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    // Buffer directo del hilo con capacidad para el bloque (Little endian)
+    private static ByteBuffer obtenerBuffer(int lon) {
+        ByteBuffer[] buffer = BUFFERS.get();
+        if (buffer[0] == null || buffer[0].capacity() < lon) {
+            buffer[0] = ByteBuffer.allocateDirect(Math.max(lon, 1 << 16)).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        buffer[0].clear();
+        buffer[0].limit(lon);
+        return buffer[0];
+    }
+
+    // Canal [pos, pos + remaining) > Buffer - Fin de fichero antes de tiempo
+    private static void leerCompleto(FileChannel canal, ByteBuffer buf, long pos) throws IOException {
+        while (buf.hasRemaining()) {
+            if (canal.read(buf, pos + buf.position()) < 0) {
+                throw new IOException("Datos corruptos - Fin de fichero en byte " + (pos + buf.position()));
+            }
+        }
+    }
+}
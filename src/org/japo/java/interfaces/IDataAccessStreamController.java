@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.interfaces;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ *
+ */
+public interface IDataAccessStreamController extends IDataAccessController {
+
+    // Tamaño de los buffers de fichero
+    public static final int TAM_BUFFER = 1 << 16;
+
+    // Flujo > Tickets empaquetados - Devuelve el número de tickets
+    public long importarTickets(InputStream entrada, LongConsumer consumidor) throws Exception;
+
+    // Tickets empaquetados > Flujo - Devuelve el número de tickets
+    public long exportarTickets(PrimitiveIterator.OfLong tickets, OutputStream salida) throws Exception;
+
+    // Fichero > Tickets empaquetados
+    public default long importarTickets(String fichero, LongConsumer consumidor) throws Exception {
+        try (InputStream entrada = new BufferedInputStream(new FileInputStream(fichero), TAM_BUFFER)) {
+            return importarTickets(entrada, consumidor);
+        }
+    }
+
+    // Tickets empaquetados > Fichero
+    public default long exportarTickets(PrimitiveIterator.OfLong tickets, String fichero) throws Exception {
+        try (OutputStream salida = new BufferedOutputStream(new FileOutputStream(fichero), TAM_BUFFER)) {
+            return exportarTickets(tickets, salida);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.interfaces;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ *
+ */
+public interface IFormatoFichero {
+
+    // Confianza del reconocimiento por cabecera
+    public static final int NO_RECONOCIDO = 0;
+    public static final int RECONOCIDO_DEBIL = 25;      // Compatible, sin rasgos propios
+    public static final int RECONOCIDO = 50;            // Estructura propia del formato
+    public static final int RECONOCIDO_MAGIC = 100;     // Bytes mágicos
+
+    // Nombre del formato (PRP, CSV...)
+    public String getFormato();
+
+    // Extensiones de fichero - Minúsculas sin punto
+    public String[] getExtensiones();
+
+    // Primeros bytes del fichero > Confianza
+    public int reconocer(byte[] cabecera, int longitud);
+}
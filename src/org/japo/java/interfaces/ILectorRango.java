@@ -0,0 +1,30 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.interfaces;
+
+import java.nio.channels.FileChannel;
+import java.util.function.LongConsumer;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ *
+ */
+public interface ILectorRango {
+
+    // Rango [ini, fin) alineado a líneas > Tickets - Devuelve el número de tickets
+    public long importarRango(FileChannel canal, long ini, long fin, LongConsumer consumidor) throws Exception;
+}
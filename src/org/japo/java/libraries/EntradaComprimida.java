@@ -0,0 +1,230 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.libraries;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class EntradaComprimida extends InputStream {
+
+    // Tamaño del buffer de entrada comprimida
+    public static final int TAM_BUFFER = 1 << 16;
+
+    // Indicadores de la cabecera gzip
+    private static final int FLG_FHCRC = 0x02;
+    private static final int FLG_FEXTRA = 0x04;
+    private static final int FLG_FNAME = 0x08;
+    private static final int FLG_FCOMMENT = 0x10;
+
+    // Origen comprimido
+    private final InputStream origen;
+    private final byte[] entrada = new byte[TAM_BUFFER];
+    private int pos;
+    private int lim;
+
+    // Descompresor reutilizado entre miembros
+    private final Inflater inflater = new Inflater(true);
+    private final CRC32 crc = new CRC32();
+    private final byte[] uno = new byte[1];
+
+    // Estado - Dentro de un miembro / Fin de flujo
+    private boolean enMiembro;
+    private boolean fin;
+    private long miembros;
+
+    // Constructor Parametrizado
+    public EntradaComprimida(InputStream origen) {
+        this.origen = origen;
+    }
+
+    // Miembros gzip leídos
+    public long getMiembros() {
+        return miembros;
+    }
+
+    // Cabecera > Flujo gzip
+    public static boolean esComprimido(byte[] cabecera, int longitud) {
+        return longitud >= 3
+                && (cabecera[0] & 0xFF) == SalidaComprimida.ID1
+                && (cabecera[1] & 0xFF) == SalidaComprimida.ID2
+                && cabecera[2] == SalidaComprimida.CM_DEFLATE;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(uno, 0, 1) < 0 ? -1 : uno[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        try {
+            while (!fin) {
+                // Miembro siguiente
+                if (!enMiembro) {
+                    if (!leerCabecera()) {
+                        fin = true;
+                        break;
+                    }
+                    continue;
+                }
+
+                // Datos descomprimidos
+                int num = inflater.inflate(b, off, len);
+                if (num > 0) {
+                    crc.update(b, off, num);
+                    return num;
+                }
+
+                // Fin del miembro / Más entrada
+                if (inflater.finished()) {
+                    pos = lim - inflater.getRemaining();
+                    leerCola();
+                    enMiembro = false;
+                } else if (inflater.needsDictionary()) {
+                    throw new ZipException("Datos corruptos - Diccionario gzip no soportado");
+                } else if (inflater.needsInput()) {
+                    if (pos == lim && !rellenar()) {
+                        throw new EOFException("Datos corruptos - Fin de flujo comprimido inesperado");
+                    }
+                    inflater.setInput(entrada, pos, lim - pos);
+                    pos = lim;
+                }
+            }
+            return -1;
+        } catch (DataFormatException e) {
+            throw new ZipException("Datos corruptos - " + e.getMessage());
+        }
+    }
+
+    // Resto del flujo - Comprueba los CRC pendientes
+    public void leerHastaFin() throws IOException {
+        byte[] resto = new byte[1 << 12];
+        while (read(resto, 0, resto.length) >= 0) {
+            // Descarte
+        }
+    }
+
+    // Libera el descompresor - No cierra el origen
+    public void terminar() {
+        inflater.end();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            terminar();
+        } finally {
+            origen.close();
+        }
+    }
+
+    // Cabecera del miembro - false en fin de flujo
+    private boolean leerCabecera() throws IOException {
+        // Fin de flujo entre miembros
+        int id1 = leerByte();
+        if (id1 < 0) {
+            return false;
+        }
+
+        // Identificación + Método
+        if (id1 != SalidaComprimida.ID1 || leerObligatorio() != SalidaComprimida.ID2
+                || leerObligatorio() != SalidaComprimida.CM_DEFLATE) {
+            throw new ZipException("Datos corruptos - Miembro gzip " + miembros + " no reconocido");
+        }
+        int flg = leerObligatorio();
+        saltar(6);
+
+        // Campos opcionales
+        if ((flg & FLG_FEXTRA) != 0) {
+            saltar(leerObligatorio() | leerObligatorio() << 8);
+        }
+        if ((flg & FLG_FNAME) != 0) {
+            while (leerObligatorio() != 0) {
+                // Nombre descartado
+            }
+        }
+        if ((flg & FLG_FCOMMENT) != 0) {
+            while (leerObligatorio() != 0) {
+                // Comentario descartado
+            }
+        }
+        if ((flg & FLG_FHCRC) != 0) {
+            saltar(2);
+        }
+
+        // Descompresor + CRC del miembro
+        inflater.reset();
+        crc.reset();
+        enMiembro = true;
+        return true;
+    }
+
+    // Cola del miembro - CRC32 + Tamaño
+    private void leerCola() throws IOException {
+        int crcMiembro = leerObligatorio() | leerObligatorio() << 8
+                | leerObligatorio() << 16 | leerObligatorio() << 24;
+        int tamMiembro = leerObligatorio() | leerObligatorio() << 8
+                | leerObligatorio() << 16 | leerObligatorio() << 24;
+        if (crcMiembro != (int) crc.getValue() || tamMiembro != (int) inflater.getBytesWritten()) {
+            throw new ZipException("Datos corruptos - CRC del miembro gzip " + miembros);
+        }
+        miembros++;
+    }
+
+    // Byte de entrada / -1 en fin de flujo
+    private int leerByte() throws IOException {
+        if (pos == lim && !rellenar()) {
+            return -1;
+        }
+        return entrada[pos++] & 0xFF;
+    }
+
+    // Byte de entrada - Fin de flujo = Corrupción
+    private int leerObligatorio() throws IOException {
+        int b = leerByte();
+        if (b < 0) {
+            throw new EOFException("Datos corruptos - Miembro gzip " + miembros + " incompleto");
+        }
+        return b;
+    }
+
+    // Salto de bytes de cabecera
+    private void saltar(int num) throws IOException {
+        for (int i = 0; i < num; i++) {
+            leerObligatorio();
+        }
+    }
+
+    // Buffer de entrada vacío > Origen
+    private boolean rellenar() throws IOException {
+        int num = origen.read(entrada, 0, entrada.length);
+        pos = 0;
+        lim = Math.max(num, 0);
+        return num > 0;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.libraries;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.function.BooleanSupplier;
+import org.japo.java.interfaces.IProgreso;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class EntradaProgreso extends FilterInputStream {
+
+    // Seguimiento
+    private final long total;
+    private final IProgreso progreso;
+    private final BooleanSupplier cancelado;
+
+    // Bytes leídos
+    private long leidos;
+
+    // Constructor Parametrizado - Total de bytes esperado (-1 desconocido)
+    public EntradaProgreso(InputStream entrada, long total,
+            IProgreso progreso, BooleanSupplier cancelado) {
+        super(entrada);
+        this.total = total;
+        this.progreso = progreso;
+        this.cancelado = cancelado;
+    }
+
+    @Override
+    public int read() throws IOException {
+        comprobarCancelacion();
+        int b = super.read();
+        if (b >= 0) {
+            avanzar(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        comprobarCancelacion();
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            avanzar(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        comprobarCancelacion();
+        long saltados = super.skip(n);
+        avanzar(saltados);
+        return saltados;
+    }
+
+    public long getLeidos() {
+        return leidos;
+    }
+
+    // Bytes leídos > Progreso
+    private void avanzar(long n) {
+        leidos += n;
+        progreso.actualizar(leidos, total);
+    }
+
+    // Cancelación solicitada > Fin de la lectura
+    private void comprobarCancelacion() throws InterruptedIOException {
+        if (cancelado.getAsBoolean()) {
+            throw new InterruptedIOException("Operación cancelada");
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.libraries;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class EntradaRango extends InputStream {
+
+    // Tamaño del buffer
+    public static final int TAM_BUFFER = 1 << 16;
+
+    // Canal compartido - Lecturas posicionales
+    private final FileChannel canal;
+    private long pos;
+    private final long fin;
+
+    // Buffer de lectura
+    private final ByteBuffer buf = ByteBuffer.allocate(TAM_BUFFER);
+
+    // Constructor Parametrizado - Rango [ini, fin)
+    public EntradaRango(FileChannel canal, long ini, long fin) {
+        this.canal = canal;
+        this.pos = ini;
+        this.fin = fin;
+        buf.limit(0);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!buf.hasRemaining() && !rellenar()) {
+            return -1;
+        }
+        return buf.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!buf.hasRemaining() && !rellenar()) {
+            return -1;
+        }
+        int n = Math.min(len, buf.remaining());
+        buf.get(b, off, n);
+        return n;
+    }
+
+    // Siguiente tramo del rango
+    private boolean rellenar() throws IOException {
+        // Fin del rango
+        if (pos >= fin) {
+            return false;
+        }
+
+        // Lectura posicional
+        buf.clear();
+        buf.limit((int) Math.min(buf.capacity(), fin - pos));
+        int leidos = canal.read(buf, pos);
+        buf.flip();
+        if (leidos <= 0) {
+            return false;
+        }
+        pos += leidos;
+        return true;
+    }
+}
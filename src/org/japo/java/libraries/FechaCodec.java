@@ -0,0 +1,252 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.libraries;
+
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class FechaCodec {
+
+    // Fecha no válida
+    public static final int NO_VALIDA = Integer.MIN_VALUE;
+
+    // Longitud del texto dd/mm/aaaa
+    public static final int LONGITUD = 10;
+
+    // Rango de fechas cacheadas - 01/01/2000 - 31/12/2099
+    public static final int CACHE_INI = 10957;
+    public static final int CACHE_FIN = 47482;
+
+    // Textos dd/mm/aaaa cacheados - Relleno bajo demanda
+    private static final String[] CACHE = new String[CACHE_FIN - CACHE_INI + 1];
+
+    // Reloj de referencia
+    private static volatile Clock reloj = Clock.systemDefaultZone();
+
+    // Día de hoy cacheado - Válido en [ini, fin)
+    private static volatile Hoy hoy = new Hoy(0, 0, 0);
+
+    // Texto d/m/a > Día epoch (Una pasada)
+    public static int convertir(CharSequence fecha) {
+        // Fecha vacía
+        if (fecha == null) {
+            return NO_VALIDA;
+        }
+
+        // Análisis común
+        return analizar(fecha, null, 0, fecha.length());
+    }
+
+    // Bytes d/m/a > Día epoch - [ini, fin)
+    public static int convertir(ByteBuffer buf, int ini, int fin) {
+        return analizar(null, buf, ini, fin);
+    }
+
+    // d/m/a > Día epoch - Texto o bytes en [ini, fin)
+    // Día y mes de 1-2 dígitos, año de 1-4 dígitos - Vía rápida dd/mm/aaaa
+    private static int analizar(CharSequence txt, ByteBuffer buf, int ini, int fin) {
+        // Vía rápida - Ancho fijo dd/mm/aaaa
+        if (fin - ini == LONGITUD
+                && leer(txt, buf, ini + 2) == '/' && leer(txt, buf, ini + 5) == '/') {
+            int dia = 0;
+            int mes = 0;
+            int any = 0;
+            for (int i = 0; i < LONGITUD; i++) {
+                int c = leer(txt, buf, ini + i);
+                if (i == 2 || i == 5) {
+                    continue;
+                } else if (c < '0' || c > '9') {
+                    return NO_VALIDA;
+                } else if (i < 2) {
+                    dia = dia * 10 + c - '0';
+                } else if (i < 5) {
+                    mes = mes * 10 + c - '0';
+                } else {
+                    any = any * 10 + c - '0';
+                }
+            }
+            return convertir(dia, mes, any);
+        }
+
+        // Acumuladores
+        int dia = 0;
+        int mes = 0;
+        int any = 0;
+        int campo = 0;
+        int digitos = 0;
+
+        // Recorrido único - Campos de ancho variable
+        for (int i = ini; i < fin; i++) {
+            int c = leer(txt, buf, i);
+            if (c >= '0' && c <= '9') {
+                int d = c - '0';
+                if (campo == 0) {
+                    dia = dia * 10 + d;
+                } else if (campo == 1) {
+                    mes = mes * 10 + d;
+                } else {
+                    any = any * 10 + d;
+                }
+                digitos++;
+            } else if (c == '/' && campo < 2 && digitos >= 1 && digitos <= 2) {
+                campo++;
+                digitos = 0;
+            } else {
+                return NO_VALIDA;
+            }
+        }
+
+        // Validar Estructura
+        if (campo != 2 || digitos < 1 || digitos > 4) {
+            return NO_VALIDA;
+        }
+
+        // Validar y convertir
+        return convertir(dia, mes, any);
+    }
+
+    // Carácter de texto o byte en la posición indicada
+    private static int leer(CharSequence txt, ByteBuffer buf, int pos) {
+        return txt != null ? txt.charAt(pos) : buf.get(pos);
+    }
+
+    // Día + Mes + Año > Día epoch (Validado)
+    public static int convertir(int dia, int mes, int any) {
+        if (any < 0 || any > 9999 || !UtilesFecha.validarFecha(dia, mes, any)) {
+            return NO_VALIDA;
+        }
+        return calcularDiaEpoch(dia, mes, any);
+    }
+
+    // Validación Fecha - d/m/a
+    public static boolean validar(CharSequence fecha) {
+        return convertir(fecha) != NO_VALIDA;
+    }
+
+    // Día epoch > Texto dd/mm/aaaa
+    public static String formatear(int diaEpoch) {
+        // Fuera de caché
+        if (diaEpoch < CACHE_INI || diaEpoch > CACHE_FIN) {
+            return calcularTexto(diaEpoch);
+        }
+
+        // Caché - Carrera benigna (String inmutable)
+        String txt = CACHE[diaEpoch - CACHE_INI];
+        if (txt == null) {
+            txt = calcularTexto(diaEpoch);
+            CACHE[diaEpoch - CACHE_INI] = txt;
+        }
+
+        // Devolver Texto
+        return txt;
+    }
+
+    // Día + Mes + Año > Día epoch (Calendario gregoriano proléptico)
+    public static int calcularDiaEpoch(int dia, int mes, int any) {
+        // Año desplazado a marzo
+        int y = mes <= 2 ? any - 1 : any;
+
+        // Era de 400 años
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yoe = y - era * 400;
+        int doy = (153 * (mes + (mes > 2 ? -3 : 9)) + 2) / 5 + dia - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+
+        // Días desde 01/01/1970
+        return era * 146097 + doe - 719468;
+    }
+
+    // Día epoch > Texto dd/mm/aaaa (Sin caché)
+    private static String calcularTexto(int diaEpoch) {
+        // Era de 400 años
+        int z = diaEpoch + 719468;
+        int era = (z >= 0 ? z : z - 146096) / 146097;
+        int doe = z - era * 146097;
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+
+        // Componentes de la fecha
+        int dia = doy - (153 * mp + 2) / 5 + 1;
+        int mes = mp < 10 ? mp + 3 : mp - 9;
+        int any = yoe + era * 400 + (mes <= 2 ? 1 : 0);
+
+        // Texto de la fecha
+        char[] txt = {
+            (char) ('0' + dia / 10), (char) ('0' + dia % 10), '/',
+            (char) ('0' + mes / 10), (char) ('0' + mes % 10), '/',
+            (char) ('0' + any / 1000 % 10), (char) ('0' + any / 100 % 10),
+            (char) ('0' + any / 10 % 10), (char) ('0' + any % 10)};
+
+        // Devolver Texto
+        return new String(txt);
+    }
+
+    // Día epoch de hoy - Recalculado al cambiar de día
+    public static int obtenerHoy() {
+        // Instante actual
+        Clock actual = reloj;
+        long ahora = actual.millis();
+
+        // Caché vigente
+        Hoy cache = hoy;
+        if (ahora >= cache.ini && ahora < cache.fin) {
+            return cache.dia;
+        }
+
+        // Recalcular día y límites
+        ZoneId zona = actual.getZone();
+        LocalDate fecha = LocalDate.now(actual);
+        long ini = fecha.atStartOfDay(zona).toInstant().toEpochMilli();
+        long fin = fecha.plusDays(1).atStartOfDay(zona).toInstant().toEpochMilli();
+        cache = new Hoy((int) fecha.toEpochDay(), ini, fin);
+        hoy = cache;
+
+        // Devolver Día
+        return cache.dia;
+    }
+
+    // Fecha de Hoy - dd/mm/aaaa
+    public static String obtenerFechaHoy() {
+        return formatear(obtenerHoy());
+    }
+
+    // Reloj de referencia - Invalida el día cacheado
+    public static void establecerReloj(Clock nuevo) {
+        reloj = nuevo;
+        hoy = new Hoy(0, 0, 0);
+    }
+
+    // Día cacheado + Intervalo de validez (ms)
+    private static final class Hoy {
+
+        final int dia;
+        final long ini;
+        final long fin;
+
+        Hoy(int dia, long ini, long fin) {
+            this.dia = dia;
+            this.ini = ini;
+            this.fin = fin;
+        }
+    }
+}
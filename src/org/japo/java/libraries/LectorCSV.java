@@ -0,0 +1,244 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.libraries;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import org.japo.java.models.Model;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class LectorCSV {
+
+    // Tamaño del buffer - Longitud máxima de línea
+    public static final int TAM_BUFFER = 1 << 20;
+
+    // Campos memorizados por línea
+    public static final int MAX_CAMPOS = 16;
+
+    // Separador de campos
+    public static final byte SEPARADOR = ',';
+
+    // Origen de datos
+    private final ReadableByteChannel canal;
+    private final FileChannel canalFichero;
+    private long posFichero;
+    private final long finFichero;
+
+    // Buffer de lectura - Datos en [0, limit)
+    private final ByteBuffer buf = ByteBuffer.allocateDirect(TAM_BUFFER);
+    private int cursor;
+    private boolean agotado;
+
+    // Campos de la línea actual - [ini, fin) recortados
+    private final int[] camposIni = new int[MAX_CAMPOS];
+    private final int[] camposFin = new int[MAX_CAMPOS];
+    private int numCampos;
+
+    // Línea actual (Desde 1) y bytes consumidos
+    private long linea;
+    private long consumidos;
+    private long inicioLinea;
+
+    // Constructor Parametrizado - Flujo completo
+    public LectorCSV(ReadableByteChannel canal) {
+        this.canal = canal;
+        this.canalFichero = null;
+        this.finFichero = Long.MAX_VALUE;
+        buf.limit(0);
+    }
+
+    // Constructor Parametrizado - Rango de fichero [ini, fin) alineado a líneas
+    public LectorCSV(FileChannel canal, long ini, long fin) {
+        this.canal = null;
+        this.canalFichero = canal;
+        this.posFichero = ini;
+        this.finFichero = fin;
+        buf.limit(0);
+    }
+
+    // Avanza a la siguiente línea no vacía
+    public boolean siguiente() throws IOException {
+        while (true) {
+            // Fin de línea en el buffer
+            int fin = buscarFinLinea();
+            if (fin < 0) {
+                return false;
+            }
+
+            // Línea actual [cursor, fin)
+            int ini = cursor;
+            cursor = fin < buf.limit() ? fin + 1 : fin;
+            inicioLinea = consumidos;
+            consumidos += cursor - ini;
+            linea++;
+
+            // Separar campos
+            separarCampos(ini, fin);
+
+            // Línea no vacía
+            if (numCampos > 1 || camposFin[0] > camposIni[0]) {
+                return true;
+            }
+        }
+    }
+
+    // --- INICIO ACCESO A CAMPOS
+    //
+    public ByteBuffer getBuffer() {
+        return buf;
+    }
+
+    public int getNumCampos() {
+        return numCampos;
+    }
+
+    public int getInicio(int campo) {
+        return camposIni[campo];
+    }
+
+    public int getFin(int campo) {
+        return camposFin[campo];
+    }
+
+    public long getLinea() {
+        return linea;
+    }
+
+    public long getConsumidos() {
+        return consumidos;
+    }
+
+    public long getInicioLinea() {
+        return inicioLinea;
+    }
+
+    // --- FIN ACCESO A CAMPOS
+
+    // Línea actual > Ticket (Sin Strings intermedios)
+    public long convertirTicket() throws Exception {
+        // Número de campos
+        if (numCampos != Model.NUM_ITEMS) {
+            throw new Exception("Datos corruptos - Línea " + linea);
+        }
+
+        // Campos validados
+        int numero = ValidadorModelo.convertirNumero(buf,
+                camposIni[Model.POS_NUMERO], camposFin[Model.POS_NUMERO]);
+        int serie = ValidadorModelo.convertirSerie(buf,
+                camposIni[Model.POS_SERIE], camposFin[Model.POS_SERIE]);
+        int fraccion = ValidadorModelo.convertirFraccion(buf,
+                camposIni[Model.POS_FRACCION], camposFin[Model.POS_FRACCION]);
+        int fecha = FechaCodec.convertir(buf,
+                camposIni[Model.POS_FECHA], camposFin[Model.POS_FECHA]);
+        int precio = ValidadorModelo.convertirPrecio(buf,
+                camposIni[Model.POS_PRECIO], camposFin[Model.POS_PRECIO]);
+
+        // Validar Campos
+        if (fecha == FechaCodec.NO_VALIDA ||
+                !TicketCodec.validarCampos(numero, serie, fraccion, precio)) {
+            throw new Exception("Datos corruptos - Línea " + linea);
+        }
+
+        // Devolver Ticket
+        return TicketCodec.empaquetarSinComprobar(numero, serie, fraccion, fecha, precio);
+    }
+
+    // Posición del '\n' de la línea actual (limit si última línea) / -1 fin de datos
+    private int buscarFinLinea() throws IOException {
+        int desde = cursor;
+        while (true) {
+            // Búsqueda en el buffer
+            int limite = buf.limit();
+            for (int i = desde; i < limite; i++) {
+                if (buf.get(i) == '\n') {
+                    return i;
+                }
+            }
+
+            // Fin de datos
+            if (agotado) {
+                return cursor < limite ? limite : -1;
+            }
+
+            // Línea incompleta - Compactar y leer más
+            desde = limite - cursor;
+            if (cursor == 0 && limite == buf.capacity()) {
+                throw new IOException("Línea demasiado larga - Línea " + (linea + 1));
+            }
+            compactarLeer();
+        }
+    }
+
+    // Mueve la línea pendiente al inicio y rellena el buffer
+    private void compactarLeer() throws IOException {
+        // Compactar
+        buf.position(cursor);
+        buf.compact();
+        cursor = 0;
+
+        // Leer
+        int leidos;
+        if (canalFichero != null) {
+            int max = (int) Math.min(buf.remaining(), finFichero - posFichero);
+            buf.limit(buf.position() + max);
+            leidos = max > 0 ? canalFichero.read(buf, posFichero) : -1;
+            if (leidos > 0) {
+                posFichero += leidos;
+            }
+        } else {
+            leidos = canal.read(buf);
+        }
+        agotado = leidos < 0;
+
+        // Datos en [0, limit)
+        buf.flip();
+    }
+
+    // Separa [ini, fin) en campos recortados
+    private void separarCampos(int ini, int fin) {
+        numCampos = 0;
+        int campoIni = ini;
+        for (int i = ini; i <= fin; i++) {
+            if (i == fin || buf.get(i) == SEPARADOR) {
+                if (numCampos < MAX_CAMPOS) {
+                    // Recorte de espacios
+                    int a = campoIni;
+                    int b = i;
+                    while (a < b && esEspacio(buf.get(a))) {
+                        a++;
+                    }
+                    while (b > a && esEspacio(buf.get(b - 1))) {
+                        b--;
+                    }
+                    camposIni[numCampos] = a;
+                    camposFin[numCampos] = b;
+                }
+                numCampos++;
+                campoIni = i + 1;
+            }
+        }
+    }
+
+    // Espacio, tabulador o retorno de carro
+    private static boolean esEspacio(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+}
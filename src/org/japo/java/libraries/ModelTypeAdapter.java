@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.libraries;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import org.japo.java.models.Model;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class ModelTypeAdapter extends TypeAdapter<Model> {
+
+    // Nombres Campos JSON
+    public static final String JSON_NUMERO = "numero";
+    public static final String JSON_SERIE = "serie";
+    public static final String JSON_FRACCION = "fraccion";
+    public static final String JSON_FECHA = "fecha";
+    public static final String JSON_PRECIO = "precio";
+
+    // Objeto JSON > Modelo - Campos ausentes con su valor por defecto
+    @Override
+    public Model read(JsonReader lector) throws IOException {
+        // Valor nulo
+        if (lector.peek() == JsonToken.NULL) {
+            lector.nextNull();
+            return null;
+        }
+
+        // Campos del objeto
+        String[] campos = {
+            Model.DEF_NUMERO, Model.DEF_SERIE, Model.DEF_FRACCION,
+            Model.DEF_FECHA, Model.DEF_PRECIO};
+        leerCampos(lector, campos);
+
+        // Campos validados > Modelo
+        try {
+            return TicketCodec.desempaquetar(empaquetar(campos));
+        } catch (Exception e) {
+            throw new IOException("Datos corruptos", e);
+        }
+    }
+
+    // Modelo > Objeto JSON - Sin reflexión
+    @Override
+    public void write(JsonWriter escritor, Model model) throws IOException {
+        // Valor nulo
+        if (model == null) {
+            escritor.nullValue();
+            return;
+        }
+
+        // Campos del modelo
+        escritor.beginObject();
+        escritor.name(JSON_NUMERO).value(model.getNumero());
+        escritor.name(JSON_SERIE).value(model.getSerie());
+        escritor.name(JSON_FRACCION).value(model.getFraccion());
+        escritor.name(JSON_FECHA).value(model.getFecha());
+        escritor.name(JSON_PRECIO).value(model.getPrecio());
+        escritor.endObject();
+    }
+
+    // Objeto JSON > Ticket - Todos los campos obligatorios
+    public static long leerTicket(JsonReader lector) throws Exception {
+        String[] campos = new String[Model.NUM_ITEMS];
+        leerCampos(lector, campos);
+        return empaquetar(campos);
+    }
+
+    // Ticket > Objeto JSON
+    public static void escribirTicket(JsonWriter escritor, long ticket) throws IOException {
+        escritor.beginObject();
+        escritor.name(JSON_NUMERO).value(TicketCodec.formatearNumero(TicketCodec.numero(ticket)));
+        escritor.name(JSON_SERIE).value(Integer.toString(TicketCodec.serie(ticket)));
+        escritor.name(JSON_FRACCION).value(Integer.toString(TicketCodec.fraccion(ticket)));
+        escritor.name(JSON_FECHA).value(TicketCodec.formatearFecha(TicketCodec.fecha(ticket)));
+        escritor.name(JSON_PRECIO).value(Integer.toString(TicketCodec.precio(ticket)));
+        escritor.endObject();
+    }
+
+    // Objeto JSON > Campos (Model.POS_*) - Ignora los desconocidos
+    private static void leerCampos(JsonReader lector, String[] campos) throws IOException {
+        lector.beginObject();
+        while (lector.hasNext()) {
+            switch (lector.nextName()) {
+                case JSON_NUMERO:
+                    campos[Model.POS_NUMERO] = lector.nextString();
+                    break;
+                case JSON_SERIE:
+                    campos[Model.POS_SERIE] = lector.nextString();
+                    break;
+                case JSON_FRACCION:
+                    campos[Model.POS_FRACCION] = lector.nextString();
+                    break;
+                case JSON_FECHA:
+                    campos[Model.POS_FECHA] = lector.nextString();
+                    break;
+                case JSON_PRECIO:
+                    campos[Model.POS_PRECIO] = lector.nextString();
+                    break;
+                default:
+                    lector.skipValue();
+            }
+        }
+        lector.endObject();
+    }
+
+    // Campos > Ticket validado
+    private static long empaquetar(String[] campos) throws Exception {
+        return TicketCodec.empaquetar(
+                campos[Model.POS_NUMERO],
+                campos[Model.POS_SERIE],
+                campos[Model.POS_FRACCION],
+                campos[Model.POS_FECHA],
+                campos[Model.POS_PRECIO]);
+    }
+}
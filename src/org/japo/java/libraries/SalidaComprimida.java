@@ -0,0 +1,257 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.libraries;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class SalidaComprimida extends OutputStream {
+
+    // Datos por bloque - Cada bloque es un miembro gzip independiente
+    public static final int TAM_BLOQUE = 1 << 18;
+
+    // Reserva inicial del bloque - Crece hasta TAM_BLOQUE (Ficheros pequeños)
+    public static final int TAM_BLOQUE_INICIAL = 1 << 12;
+
+    // Cabecera gzip - ID1 ID2 CM FLG MTIME(4) XFL OS XLEN(2) + Subcampo TK
+    // Subcampo TK - Tamaño del miembro + CRC32 de los bytes tras la cabecera
+    public static final int ID1 = 0x1F;
+    public static final int ID2 = 0x8B;
+    public static final int CM_DEFLATE = 8;
+    public static final int FLG_FEXTRA = 0x04;
+    public static final int OS_DESCONOCIDO = 255;
+    public static final byte SUBCAMPO_SI1 = 'T';
+    public static final byte SUBCAMPO_SI2 = 'K';
+    public static final int TAM_SUBCAMPO = 8;
+    public static final int POS_TAM_MIEMBRO = 16;
+    public static final int POS_SUMA_MIEMBRO = 20;
+    public static final int TAM_CABECERA = 10 + 2 + 4 + TAM_SUBCAMPO;
+
+    // Cola gzip - CRC32 + ISIZE
+    public static final int TAM_COLA = 8;
+
+    // Compresores reutilizados por hilo - Reserva nativa costosa
+    private static final ThreadLocal<Deflater> DEFLATERS = ThreadLocal.withInitial(
+            () -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+    private static final ThreadLocal<CRC32> CRCS = ThreadLocal.withInitial(CRC32::new);
+
+    // Destino + Compresión
+    private final OutputStream destino;
+    private final int nivel;
+    private final ForkJoinPool pool;
+    private final int maxPendientes;
+
+    // Bloques reutilizados / En compresión (Orden de escritura)
+    private final ArrayDeque<Bloque> libres = new ArrayDeque<>();
+    private final ArrayDeque<CompletableFuture<Bloque>> pendientes = new ArrayDeque<>();
+    private Bloque actual;
+    private boolean finalizado;
+
+    // Bloque de datos + Miembro gzip comprimido
+    private static class Bloque {
+
+        private byte[] datos = new byte[TAM_BLOQUE_INICIAL];
+        private int lonDatos;
+        private byte[] miembro = new byte[0];
+        private int lonMiembro;
+    }
+
+    // Constructor Parametrizado - Compresión paralela en el pool común
+    public SalidaComprimida(OutputStream destino) {
+        this(destino, Deflater.DEFAULT_COMPRESSION, ForkJoinPool.commonPool());
+    }
+
+    // Constructor Parametrizado - Pool null = Compresión en el hilo que escribe
+    public SalidaComprimida(OutputStream destino, int nivel, ForkJoinPool pool) {
+        this.destino = destino;
+        this.nivel = nivel;
+        this.pool = pool;
+        this.maxPendientes = pool != null ? 2 * pool.getParallelism() : 0;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        Bloque bloque = obtenerBloque();
+        bloque.datos[bloque.lonDatos++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            Bloque bloque = obtenerBloque();
+            int num = Math.min(len, bloque.datos.length - bloque.lonDatos);
+            System.arraycopy(b, off, bloque.datos, bloque.lonDatos, num);
+            bloque.lonDatos += num;
+            off += num;
+            len -= num;
+        }
+    }
+
+    // Bloque parcial + Pendientes > Destino
+    @Override
+    public void flush() throws IOException {
+        if (actual != null && actual.lonDatos > 0) {
+            enviar();
+        }
+        while (!pendientes.isEmpty()) {
+            escribir(esperar(pendientes.poll()));
+        }
+        destino.flush();
+    }
+
+    // Datos pendientes > Destino - No cierra el destino
+    public void finalizar() throws IOException {
+        if (!finalizado) {
+            flush();
+            finalizado = true;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finalizar();
+        } finally {
+            destino.close();
+        }
+    }
+
+    // Bloque en curso con espacio
+    private Bloque obtenerBloque() throws IOException {
+        if (finalizado) {
+            throw new IOException("Flujo comprimido finalizado");
+        }
+        if (actual != null && actual.lonDatos == actual.datos.length) {
+            if (actual.datos.length < TAM_BLOQUE) {
+                actual.datos = Arrays.copyOf(actual.datos, actual.datos.length * 2);
+            } else {
+                enviar();
+            }
+        }
+        if (actual == null) {
+            actual = libres.isEmpty() ? new Bloque() : libres.poll();
+            actual.lonDatos = 0;
+        }
+        return actual;
+    }
+
+    // Bloque en curso > Compresión
+    private void enviar() throws IOException {
+        final Bloque bloque = actual;
+        actual = null;
+
+        // Compresión en el hilo actual
+        if (pool == null) {
+            escribir(comprimir(bloque, nivel));
+            return;
+        }
+
+        // Compresión en el pool - Pendientes acotados (Memoria)
+        while (pendientes.size() >= maxPendientes) {
+            escribir(esperar(pendientes.poll()));
+        }
+        pendientes.add(CompletableFuture.supplyAsync(() -> comprimir(bloque, nivel), pool));
+    }
+
+    // Miembro comprimido > Destino + Bloque libre
+    private void escribir(Bloque bloque) throws IOException {
+        destino.write(bloque.miembro, 0, bloque.lonMiembro);
+        libres.add(bloque);
+    }
+
+    // Compresión terminada
+    private static Bloque esperar(CompletableFuture<Bloque> futuro) throws IOException {
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            throw new IOException("ERROR: Compresión del bloque", e.getCause());
+        }
+    }
+
+    // Datos del bloque > Miembro gzip
+    private static Bloque comprimir(Bloque bloque, int nivel) {
+        // Compresor del hilo
+        Deflater deflater = DEFLATERS.get();
+        deflater.reset();
+        deflater.setLevel(nivel);
+        deflater.setInput(bloque.datos, 0, bloque.lonDatos);
+        deflater.finish();
+
+        // Datos comprimidos - Miembro ampliado si no caben
+        int tam = bloque.lonDatos + (bloque.lonDatos >> 4) + TAM_CABECERA + TAM_COLA + 64;
+        if (bloque.miembro.length < tam) {
+            bloque.miembro = new byte[tam];
+        }
+        int pos = TAM_CABECERA;
+        while (!deflater.finished()) {
+            if (pos == bloque.miembro.length - TAM_COLA) {
+                bloque.miembro = Arrays.copyOf(bloque.miembro, bloque.miembro.length * 3 / 2);
+            }
+            pos += deflater.deflate(bloque.miembro, pos, bloque.miembro.length - TAM_COLA - pos);
+        }
+
+        // Cola - CRC32 + Tamaño de los datos
+        CRC32 crc = CRCS.get();
+        crc.reset();
+        crc.update(bloque.datos, 0, bloque.lonDatos);
+        byte[] m = bloque.miembro;
+        int lon = pos + TAM_COLA;
+        escribirEntero(m, pos, (int) crc.getValue());
+        escribirEntero(m, pos + 4, bloque.lonDatos);
+
+        // Cabecera - Tamaño y suma del miembro en el subcampo TK
+        m[0] = (byte) ID1;
+        m[1] = (byte) ID2;
+        m[2] = CM_DEFLATE;
+        m[3] = FLG_FEXTRA;
+        escribirEntero(m, 4, 0);
+        m[8] = 0;
+        m[9] = (byte) OS_DESCONOCIDO;
+        m[10] = 4 + TAM_SUBCAMPO;
+        m[11] = 0;
+        m[12] = SUBCAMPO_SI1;
+        m[13] = SUBCAMPO_SI2;
+        m[14] = TAM_SUBCAMPO;
+        m[15] = 0;
+        escribirEntero(m, POS_TAM_MIEMBRO, lon);
+        crc.reset();
+        crc.update(m, TAM_CABECERA, lon - TAM_CABECERA);
+        escribirEntero(m, POS_SUMA_MIEMBRO, (int) crc.getValue());
+        bloque.lonMiembro = lon;
+
+        // Devolver Bloque
+        return bloque;
+    }
+
+    // Entero > 4 bytes little endian
+    private static void escribirEntero(byte[] b, int pos, int valor) {
+        b[pos] = (byte) valor;
+        b[pos + 1] = (byte) (valor >>> 8);
+        b[pos + 2] = (byte) (valor >>> 16);
+        b[pos + 3] = (byte) (valor >>> 24);
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.libraries;
+
+import org.japo.java.models.Model;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class TicketCodec {
+
+    // Anchura de los campos (bits)
+    public static final int BITS_NUMERO = 17;       // 0 - 99999
+    public static final int BITS_SERIE = 8;         // 0 - 160
+    public static final int BITS_FRACCION = 4;      // 0 - 9
+    public static final int BITS_PRECIO = 7;        // 0 - 99
+    public static final int BITS_FECHA = 28;        // Día epoch con signo
+
+    // Desplazamiento de los campos
+    public static final int DESP_NUMERO = 0;
+    public static final int DESP_SERIE = DESP_NUMERO + BITS_NUMERO;
+    public static final int DESP_FRACCION = DESP_SERIE + BITS_SERIE;
+    public static final int DESP_PRECIO = DESP_FRACCION + BITS_FRACCION;
+    public static final int DESP_FECHA = DESP_PRECIO + BITS_PRECIO;
+
+    // Máscaras de los campos
+    private static final long MASK_NUMERO = (1L << BITS_NUMERO) - 1;
+    private static final long MASK_SERIE = (1L << BITS_SERIE) - 1;
+    private static final long MASK_FRACCION = (1L << BITS_FRACCION) - 1;
+    private static final long MASK_PRECIO = (1L << BITS_PRECIO) - 1;
+
+    // Rangos de los campos
+    public static final int MAX_NUMERO = 99999;
+    public static final int MAX_SERIE = 160;
+    public static final int MAX_FRACCION = 9;
+    public static final int MAX_PRECIO = 99;
+
+    // Rango de fechas - 01/01/0000 - 31/12/9999 (Días epoch)
+    public static final int MIN_FECHA = FechaCodec.calcularDiaEpoch(1, 1, 0);
+    public static final int MAX_FECHA = FechaCodec.calcularDiaEpoch(31, 12, 9999);
+
+    // Campos > Ticket - IllegalArgumentException fuera de rango
+    public static long empaquetar(int numero, int serie, int fraccion, int fecha, int precio) {
+        comprobarCampos(numero, serie, fraccion, fecha, precio);
+        return empaquetarSinComprobar(numero, serie, fraccion, fecha, precio);
+    }
+
+    // Campos ya validados > Ticket - Un campo fuera de rango invade los siguientes
+    public static long empaquetarSinComprobar(int numero, int serie, int fraccion, int fecha, int precio) {
+        return (long) numero << DESP_NUMERO |
+               (long) serie << DESP_SERIE |
+               (long) fraccion << DESP_FRACCION |
+               (long) precio << DESP_PRECIO |
+               (long) fecha << DESP_FECHA;
+    }
+
+    // Modelo > Ticket
+    public static long empaquetar(Model model) throws Exception {
+        return empaquetar(
+                model.getNumero(),
+                model.getSerie(),
+                model.getFraccion(),
+                model.getFecha(),
+                model.getPrecio());
+    }
+
+    // Textos > Ticket
+    public static long empaquetar(CharSequence txtNumero, CharSequence txtSerie,
+            CharSequence txtFraccion, CharSequence txtFecha, CharSequence txtPrecio) throws Exception {
+        // Campos Numéricos
+        int numero = ValidadorModelo.convertirNumero(txtNumero);
+        int serie = ValidadorModelo.convertirSerie(txtSerie);
+        int fraccion = ValidadorModelo.convertirFraccion(txtFraccion);
+        int fecha = FechaCodec.convertir(txtFecha);
+        int precio = ValidadorModelo.convertirPrecio(txtPrecio);
+
+        // Validar Campos
+        if (fecha == FechaCodec.NO_VALIDA || !validarCampos(numero, serie, fraccion, precio)) {
+            throw new Exception("Datos corruptos");
+        }
+
+        // Devolver Ticket
+        return empaquetarSinComprobar(numero, serie, fraccion, fecha, precio);
+    }
+
+    // Ticket > Modelo
+    public static void desempaquetar(long ticket, Model model) {
+        model.setNumero(formatearNumero(numero(ticket)));
+        model.setSerie(Integer.toString(serie(ticket)));
+        model.setFraccion(Integer.toString(fraccion(ticket)));
+        model.setFecha(formatearFecha(fecha(ticket)));
+        model.setPrecio(Integer.toString(precio(ticket)));
+    }
+
+    // Ticket > Modelo (Nuevo)
+    public static Model desempaquetar(long ticket) {
+        return new Model(
+                formatearNumero(numero(ticket)),
+                Integer.toString(serie(ticket)),
+                Integer.toString(fraccion(ticket)),
+                formatearFecha(fecha(ticket)),
+                Integer.toString(precio(ticket)));
+    }
+
+    // --- INICIO ACCESORES PRIMITIVOS
+    //
+    public static int numero(long ticket) {
+        return (int) (ticket >>> DESP_NUMERO & MASK_NUMERO);
+    }
+
+    public static int serie(long ticket) {
+        return (int) (ticket >>> DESP_SERIE & MASK_SERIE);
+    }
+
+    public static int fraccion(long ticket) {
+        return (int) (ticket >>> DESP_FRACCION & MASK_FRACCION);
+    }
+
+    public static int precio(long ticket) {
+        return (int) (ticket >>> DESP_PRECIO & MASK_PRECIO);
+    }
+
+    // Desplazamiento aritmético - Conserva el signo del día epoch
+    public static int fecha(long ticket) {
+        return (int) (ticket >> DESP_FECHA);
+    }
+
+    // --- FIN ACCESORES PRIMITIVOS
+
+    // Validación Rangos Campos
+    public static boolean validarCampos(int numero, int serie, int fraccion, int precio) {
+        return numero >= 0 && numero <= MAX_NUMERO &&
+               serie >= 0 && serie <= MAX_SERIE &&
+               fraccion >= 0 && fraccion <= MAX_FRACCION &&
+               precio >= 0 && precio <= MAX_PRECIO;
+    }
+
+    // Validación Fecha (Día epoch)
+    public static boolean validarFecha(int fecha) {
+        return fecha >= MIN_FECHA && fecha <= MAX_FECHA;
+    }
+
+    // Validación Ticket empaquetado (Datos externos)
+    public static boolean validarTicket(long ticket) {
+        return validarCampos(numero(ticket), serie(ticket), fraccion(ticket), precio(ticket)) &&
+               validarFecha(fecha(ticket));
+    }
+
+    // Campos válidos o IllegalArgumentException
+    public static void comprobarCampos(int numero, int serie, int fraccion, int fecha, int precio) {
+        if (!validarCampos(numero, serie, fraccion, precio) || !validarFecha(fecha)) {
+            throw new IllegalArgumentException(String.format(
+                    "Ticket no válido: %d serie %d fracción %d fecha %d precio %d",
+                    numero, serie, fraccion, fecha, precio));
+        }
+    }
+
+    // Ticket válido o IllegalArgumentException - Frontera de exportación
+    public static long comprobarTicket(long ticket) {
+        if (!validarTicket(ticket)) {
+            throw new IllegalArgumentException("Ticket no válido: " + ticket);
+        }
+        return ticket;
+    }
+
+    // Día + Mes + Año > Día epoch
+    public static int calcularDiaEpoch(int dia, int mes, int any) {
+        return FechaCodec.calcularDiaEpoch(dia, mes, any);
+    }
+
+    // Día epoch > Fecha dd/mm/aaaa
+    public static String formatearFecha(int diaEpoch) {
+        return FechaCodec.formatear(diaEpoch);
+    }
+
+    // Número > Texto 5 dígitos
+    public static String formatearNumero(int numero) {
+        char[] txt = {
+            (char) ('0' + numero / 10000 % 10),
+            (char) ('0' + numero / 1000 % 10),
+            (char) ('0' + numero / 100 % 10),
+            (char) ('0' + numero / 10 % 10),
+            (char) ('0' + numero % 10)};
+        return new String(txt);
+    }
+}
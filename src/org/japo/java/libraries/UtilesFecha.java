@@ -15,9 +15,7 @@
  */
 package org.japo.java.libraries;
 
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.Date;
 import java.util.GregorianCalendar;
 
 /**
@@ -156,13 +154,7 @@ public class UtilesFecha {
 
     // Validación Fecha - dd/mm/aaaa
     public static boolean validarFecha(String fecha) {
-        // Extrae los componentes de la fecha
-        int dia = obtenerDiaFecha(fecha);
-        int mes = obtenerMesFecha(fecha);
-        int any = obtenerAnyFecha(fecha);
-
-        // Valida la fecha
-        return validarFecha(dia, mes, any);
+        return FechaCodec.validar(fecha);
     }
 
     // Día (Número) > Día (Nombre)
@@ -254,7 +246,7 @@ public class UtilesFecha {
             int posSepFin = fecha.lastIndexOf("/");
 
             // Extrae el año de la fecha
-            String dato = fecha.substring(posSepFin);
+            String dato = fecha.substring(posSepFin + 1);
 
             // Convierte el año a número
             any = Integer.parseInt(dato);
@@ -283,13 +275,6 @@ public class UtilesFecha {
 
     // Fecha de Hoy - dd/mm/aaaa
     public static String obtenerFechaHoy() {
-        // Obtiene Fecha Hoy
-        Date fechaHoy = new Date();
-
-        // Formateador de Fecha
-        SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy");
-
-        // Formatea y devuelve la Fecha
-        return sdf.format(fechaHoy);
+        return FechaCodec.obtenerFechaHoy();
     }
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.libraries;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class UtilesFormato {
+
+    // Marca de orden de bytes UTF-8
+    private static final byte[] BOM_UTF8 = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    // Fichero > Primeros bytes - Devuelve los bytes leídos
+    public static int leerCabecera(String fichero, byte[] cabecera) throws IOException {
+        try (InputStream entrada = new FileInputStream(fichero)) {
+            int total = 0;
+            int leidos;
+            while (total < cabecera.length &&
+                    (leidos = entrada.read(cabecera, total, cabecera.length - total)) > 0) {
+                total += leidos;
+            }
+            return total;
+        }
+    }
+
+    // Fichero > Extensión en minúsculas (Vacía si no tiene)
+    public static String obtenerExtension(String fichero) {
+        int punto = fichero.lastIndexOf('.');
+        int barra = Math.max(fichero.lastIndexOf('/'), fichero.lastIndexOf('\\'));
+        return punto > barra ? fichero.substring(punto + 1).toLowerCase() : "";
+    }
+
+    // Primer byte de texto significativo desde pos (BOM y blancos ignorados)
+    public static int saltarBlancos(byte[] cabecera, int longitud, int pos) {
+        if (pos == 0 && empiezaPor(cabecera, longitud, 0, BOM_UTF8)) {
+            pos = BOM_UTF8.length;
+        }
+        while (pos < longitud && esBlanco(cabecera[pos])) {
+            pos++;
+        }
+        return pos;
+    }
+
+    // Inicio de la línea siguiente a pos / longitud si no hay más
+    public static int saltarLinea(byte[] cabecera, int longitud, int pos) {
+        while (pos < longitud && cabecera[pos] != '\n') {
+            pos++;
+        }
+        return Math.min(pos + 1, longitud);
+    }
+
+    // Bytes en pos == prefijo
+    public static boolean empiezaPor(byte[] cabecera, int longitud, int pos, byte[] prefijo) {
+        if (pos + prefijo.length > longitud) {
+            return false;
+        }
+        for (int i = 0; i < prefijo.length; i++) {
+            if (cabecera[pos + i] != prefijo[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Texto ASCII en pos
+    public static boolean empiezaPor(byte[] cabecera, int longitud, int pos, String prefijo) {
+        if (pos + prefijo.length() > longitud) {
+            return false;
+        }
+        for (int i = 0; i < prefijo.length(); i++) {
+            if (cabecera[pos + i] != prefijo.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Texto ASCII en cualquier posición
+    public static boolean contiene(byte[] cabecera, int longitud, String texto) {
+        for (int i = 0; i + texto.length() <= longitud; i++) {
+            if (empiezaPor(cabecera, longitud, i, texto)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Byte en pos (-1 fuera de rango)
+    public static int obtenerByte(byte[] cabecera, int longitud, int pos) {
+        return pos < longitud ? cabecera[pos] & 0xFF : -1;
+    }
+
+    // Espacio, tabulador o fin de línea
+    private static boolean esBlanco(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+}
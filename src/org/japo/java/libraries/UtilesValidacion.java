@@ -16,6 +16,8 @@
 package org.japo.java.libraries;
 
 import java.awt.Color;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.swing.JTextField;
@@ -26,6 +28,14 @@ import javax.swing.JTextField;
  */
 public class UtilesValidacion {
 
+    // Patrones compilados por expresión regular
+    private static final ConcurrentMap<String, Pattern> PATRONES = new ConcurrentHashMap<>();
+
+    // Expresión Regular > Patrón compilado (Cacheado)
+    public static Pattern obtenerPatron(String expReg) {
+        return PATRONES.computeIfAbsent(expReg, Pattern::compile);
+    }
+
     // Dato + Expresión Regular
     public static boolean validarDato(String dato, String expReg) {
         // Semáforo de validación
@@ -34,7 +44,7 @@ public class UtilesValidacion {
         // Realizar Validación
         try {
             // Patrón de la expresión regular
-            Pattern patron = Pattern.compile(expReg);
+            Pattern patron = obtenerPatron(expReg);
 
             // Detector Texto de Prueba
             Matcher detector = patron.matcher(dato);
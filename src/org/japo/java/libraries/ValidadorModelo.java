@@ -0,0 +1,160 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.libraries;
+
+import java.nio.ByteBuffer;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class ValidadorModelo {
+
+    // Valor de campo no válido
+    public static final int NO_VALIDO = -1;
+
+    // --- INICIO VALIDACIÓN TEXTO
+    //
+    // Model.ER_NUMERO - 00000 - 99999
+    public static boolean validarNumero(CharSequence dato) {
+        return convertirNumero(dato) != NO_VALIDO;
+    }
+
+    // Model.ER_SERIE - 0 - 160
+    public static boolean validarSerie(CharSequence dato) {
+        return convertirSerie(dato) != NO_VALIDO;
+    }
+
+    // Model.ER_FRACCION - 0 - 9
+    public static boolean validarFraccion(CharSequence dato) {
+        return convertirFraccion(dato) != NO_VALIDO;
+    }
+
+    // Model.ER_PRECIO - 0 - 99
+    public static boolean validarPrecio(CharSequence dato) {
+        return convertirPrecio(dato) != NO_VALIDO;
+    }
+
+    // --- FIN VALIDACIÓN TEXTO
+
+    // --- INICIO CONVERSIÓN TEXTO
+    //
+    public static int convertirNumero(CharSequence dato) {
+        // Exactamente 5 dígitos
+        if (dato == null || dato.length() != 5) {
+            return NO_VALIDO;
+        }
+
+        // Acumular dígitos
+        int valor = 0;
+        for (int i = 0; i < 5; i++) {
+            int digito = dato.charAt(i) - '0';
+            if (digito < 0 || digito > 9) {
+                return NO_VALIDO;
+            }
+            valor = valor * 10 + digito;
+        }
+        return valor;
+    }
+
+    public static int convertirSerie(CharSequence dato) {
+        return dato == null ? NO_VALIDO : convertirSinCeros(dato, 0, dato.length(), 3, 160);
+    }
+
+    public static int convertirFraccion(CharSequence dato) {
+        return dato == null ? NO_VALIDO : convertirSinCeros(dato, 0, dato.length(), 1, 9);
+    }
+
+    public static int convertirPrecio(CharSequence dato) {
+        return dato == null ? NO_VALIDO : convertirSinCeros(dato, 0, dato.length(), 2, 99);
+    }
+
+    // --- FIN CONVERSIÓN TEXTO
+
+    // --- INICIO CONVERSIÓN BYTES - [ini, fin)
+    //
+    public static int convertirNumero(ByteBuffer buf, int ini, int fin) {
+        // Exactamente 5 dígitos
+        if (fin - ini != 5) {
+            return NO_VALIDO;
+        }
+
+        // Acumular dígitos
+        int valor = 0;
+        for (int i = ini; i < fin; i++) {
+            int digito = buf.get(i) - '0';
+            if (digito < 0 || digito > 9) {
+                return NO_VALIDO;
+            }
+            valor = valor * 10 + digito;
+        }
+        return valor;
+    }
+
+    public static int convertirSerie(ByteBuffer buf, int ini, int fin) {
+        return convertirSinCeros(buf, ini, fin, 3, 160);
+    }
+
+    public static int convertirFraccion(ByteBuffer buf, int ini, int fin) {
+        return convertirSinCeros(buf, ini, fin, 1, 9);
+    }
+
+    public static int convertirPrecio(ByteBuffer buf, int ini, int fin) {
+        return convertirSinCeros(buf, ini, fin, 2, 99);
+    }
+
+    // --- FIN CONVERSIÓN BYTES
+
+    // Entero sin ceros a la izquierda (Salvo el propio 0)
+    private static int convertirSinCeros(CharSequence dato, int ini, int fin, int maxDigitos, int max) {
+        // Longitud
+        int lon = fin - ini;
+        if (lon < 1 || lon > maxDigitos || lon > 1 && dato.charAt(ini) == '0') {
+            return NO_VALIDO;
+        }
+
+        // Acumular dígitos
+        int valor = 0;
+        for (int i = ini; i < fin; i++) {
+            int digito = dato.charAt(i) - '0';
+            if (digito < 0 || digito > 9) {
+                return NO_VALIDO;
+            }
+            valor = valor * 10 + digito;
+        }
+        return valor <= max ? valor : NO_VALIDO;
+    }
+
+    // Entero sin ceros a la izquierda (Salvo el propio 0)
+    private static int convertirSinCeros(ByteBuffer buf, int ini, int fin, int maxDigitos, int max) {
+        // Longitud
+        int lon = fin - ini;
+        if (lon < 1 || lon > maxDigitos || lon > 1 && buf.get(ini) == '0') {
+            return NO_VALIDO;
+        }
+
+        // Acumular dígitos
+        int valor = 0;
+        for (int i = ini; i < fin; i++) {
+            int digito = buf.get(i) - '0';
+            if (digito < 0 || digito > 9) {
+                return NO_VALIDO;
+            }
+            valor = valor * 10 + digito;
+        }
+        return valor <= max ? valor : NO_VALIDO;
+    }
+}
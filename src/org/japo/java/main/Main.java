@@ -16,6 +16,7 @@
 package org.japo.java.main;
 
 import java.awt.EventQueue;
+import org.japo.java.controllers.LineaComandos;
 import org.japo.java.views.View;
 
 /**
@@ -24,8 +25,20 @@ import org.japo.java.views.View;
  */
 public class Main {
 
-    // Punto de entrada a la aplicación
+    // Punto de entrada a la aplicación - Con argumentos en modo lote
     public static void main(String[] args) {
+        if (args.length > 0) {
+            // Modo lote - Sin inicialización de AWT
+            System.setProperty("java.awt.headless", "true");
+            System.exit(new LineaComandos().ejecutar(args));
+        } else {
+            // Modo gráfico
+            iniciarVista();
+        }
+    }
+
+    // Vista Swing en el hilo de eventos
+    private static void iniciarVista() {
         EventQueue.invokeLater(new Runnable() {
             @Override
             public void run() {
@@ -0,0 +1,408 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.models;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import org.japo.java.libraries.TicketCodec;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class BitmapVentas {
+
+    // Espacio de claves: numero x serie x fraccion
+    public static final int NUM_SERIES = TicketCodec.MAX_SERIE + 1;
+    public static final int NUM_FRACCIONES = TicketCodec.MAX_FRACCION + 1;
+    public static final int NUM_CLAVES = (TicketCodec.MAX_NUMERO + 1) * NUM_SERIES * NUM_FRACCIONES;
+
+    // Contenedores de 2^16 claves
+    public static final int NUM_CONTENEDORES = (NUM_CLAVES + 0xFFFF) >>> 16;
+
+    // Cardinalidad máxima de un contenedor array
+    public static final int MAX_ARRAY = 4096;
+
+    // Formato de fichero
+    public static final int MAGIC = 0x4C4E4256;     // LNBV
+    public static final int VERSION = 1;
+
+    // Tipos de contenedor
+    private static final byte TIPO_ARRAY = 0;
+    private static final byte TIPO_BITMAP = 1;
+
+    // Contenedores - Indexados por los 16 bits altos de la clave
+    private final short[][] arrays = new short[NUM_CONTENEDORES][];
+    private final long[][] bitmaps = new long[NUM_CONTENEDORES][];
+    private final int[] cardinalidades = new int[NUM_CONTENEDORES];
+
+    // Día epoch del sorteo
+    private final int fecha;
+
+    // Cardinalidad total
+    private long cardinalidad;
+
+    // Constructor Parametrizado - Un bitmap por sorteo (No sincronizado)
+    public BitmapVentas(int fecha) {
+        this.fecha = fecha;
+    }
+
+    public int getFecha() {
+        return fecha;
+    }
+
+    public long getCardinalidad() {
+        return cardinalidad;
+    }
+
+    // Numero + Serie + Fracción > Clave (Rangos de TicketCodec)
+    public static int calcularClave(int numero, int serie, int fraccion) {
+        if (numero < 0 || numero > TicketCodec.MAX_NUMERO ||
+                serie < 0 || serie > TicketCodec.MAX_SERIE ||
+                fraccion < 0 || fraccion > TicketCodec.MAX_FRACCION) {
+            throw new IllegalArgumentException(String.format(
+                    "Décimo fuera de rango: %d serie %d fracción %d", numero, serie, fraccion));
+        }
+        return (numero * NUM_SERIES + serie) * NUM_FRACCIONES + fraccion;
+    }
+
+    // Ticket > Clave
+    public static int calcularClave(long ticket) {
+        return calcularClave(
+                TicketCodec.numero(ticket),
+                TicketCodec.serie(ticket),
+                TicketCodec.fraccion(ticket));
+    }
+
+    // --- INICIO DECODIFICACIÓN CLAVES
+    //
+    public static int numeroClave(int clave) {
+        return clave / (NUM_SERIES * NUM_FRACCIONES);
+    }
+
+    public static int serieClave(int clave) {
+        return clave / NUM_FRACCIONES % NUM_SERIES;
+    }
+
+    public static int fraccionClave(int clave) {
+        return clave % NUM_FRACCIONES;
+    }
+
+    // --- FIN DECODIFICACIÓN CLAVES
+
+    // Consulta de décimo vendido
+    public boolean contiene(int numero, int serie, int fraccion) {
+        return contiene(calcularClave(numero, serie, fraccion));
+    }
+
+    // Consulta de clave vendida
+    public boolean contiene(int clave) {
+        validarClave(clave);
+
+        // Contenedor
+        int alto = clave >>> 16;
+        char bajo = (char) clave;
+
+        // Búsqueda
+        if (bitmaps[alto] != null) {
+            return (bitmaps[alto][bajo >>> 6] & 1L << bajo) != 0;
+        } else if (arrays[alto] != null) {
+            return buscar(arrays[alto], cardinalidades[alto], bajo) >= 0;
+        } else {
+            return false;
+        }
+    }
+
+    // Marca un décimo vendido - Devuelve si ha cambiado
+    public boolean marcar(int numero, int serie, int fraccion) {
+        return marcar(calcularClave(numero, serie, fraccion));
+    }
+
+    // Marca una clave - Devuelve si ha cambiado
+    public boolean marcar(int clave) {
+        validarClave(clave);
+
+        // Contenedor
+        int alto = clave >>> 16;
+        char bajo = (char) clave;
+
+        // Contenedor Bitmap
+        if (bitmaps[alto] != null) {
+            long[] bits = bitmaps[alto];
+            long antes = bits[bajo >>> 6];
+            bits[bajo >>> 6] = antes | 1L << bajo;
+            if (antes == bits[bajo >>> 6]) {
+                return false;
+            }
+            cardinalidades[alto]++;
+            cardinalidad++;
+            return true;
+        }
+
+        // Contenedor Array
+        short[] lista = arrays[alto];
+        int card = cardinalidades[alto];
+        if (lista == null) {
+            lista = arrays[alto] = new short[4];
+        }
+        int pos = buscar(lista, card, bajo);
+        if (pos >= 0) {
+            return false;
+        }
+
+        // Array > Bitmap
+        if (card == MAX_ARRAY) {
+            long[] bits = new long[1024];
+            for (int i = 0; i < card; i++) {
+                char v = (char) lista[i];
+                bits[v >>> 6] |= 1L << v;
+            }
+            bits[bajo >>> 6] |= 1L << bajo;
+            bitmaps[alto] = bits;
+            arrays[alto] = null;
+        } else {
+            // Inserción ordenada
+            pos = -pos - 1;
+            if (card == lista.length) {
+                lista = arrays[alto] = Arrays.copyOf(lista, Math.min(MAX_ARRAY, card * 2));
+            }
+            System.arraycopy(lista, pos, lista, pos + 1, card - pos);
+            lista[pos] = (short) bajo;
+        }
+
+        // Actualizar Cardinalidad
+        cardinalidades[alto]++;
+        cardinalidad++;
+        return true;
+    }
+
+    // Desmarca un décimo - Devuelve si ha cambiado
+    public boolean desmarcar(int numero, int serie, int fraccion) {
+        return desmarcar(calcularClave(numero, serie, fraccion));
+    }
+
+    // Desmarca una clave - Devuelve si ha cambiado
+    public boolean desmarcar(int clave) {
+        validarClave(clave);
+
+        // Contenedor
+        int alto = clave >>> 16;
+        char bajo = (char) clave;
+
+        // Contenedor Bitmap
+        if (bitmaps[alto] != null) {
+            long[] bits = bitmaps[alto];
+            long antes = bits[bajo >>> 6];
+            bits[bajo >>> 6] = antes & ~(1L << bajo);
+            if (antes == bits[bajo >>> 6]) {
+                return false;
+            }
+            cardinalidad--;
+
+            // Bitmap > Array
+            if (--cardinalidades[alto] == MAX_ARRAY) {
+                short[] lista = new short[MAX_ARRAY];
+                int n = 0;
+                for (int w = 0; w < bits.length; w++) {
+                    long palabra = bits[w];
+                    while (palabra != 0) {
+                        lista[n++] = (short) (w << 6 | Long.numberOfTrailingZeros(palabra));
+                        palabra &= palabra - 1;
+                    }
+                }
+                arrays[alto] = lista;
+                bitmaps[alto] = null;
+            }
+            return true;
+        }
+
+        // Contenedor Array
+        short[] lista = arrays[alto];
+        if (lista == null) {
+            return false;
+        }
+        int card = cardinalidades[alto];
+        int pos = buscar(lista, card, bajo);
+        if (pos < 0) {
+            return false;
+        }
+        System.arraycopy(lista, pos + 1, lista, pos, card - pos - 1);
+        cardinalidades[alto]--;
+        cardinalidad--;
+        return true;
+    }
+
+    // Recorrido ordenado de las claves vendidas
+    public void recorrer(IntConsumer consumidor) {
+        for (int alto = 0; alto < NUM_CONTENEDORES; alto++) {
+            int base = alto << 16;
+            if (bitmaps[alto] != null) {
+                long[] bits = bitmaps[alto];
+                for (int w = 0; w < bits.length; w++) {
+                    long palabra = bits[w];
+                    while (palabra != 0) {
+                        consumidor.accept(base | w << 6 | Long.numberOfTrailingZeros(palabra));
+                        palabra &= palabra - 1;
+                    }
+                }
+            } else if (arrays[alto] != null) {
+                short[] lista = arrays[alto];
+                for (int i = 0; i < cardinalidades[alto]; i++) {
+                    consumidor.accept(base | (char) lista[i]);
+                }
+            }
+        }
+    }
+
+    // Bitmap > Fichero
+    public void guardar(Path fichero) throws IOException {
+        try (DataOutputStream salida = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(fichero), 1 << 16))) {
+            // Cabecera
+            salida.writeInt(MAGIC);
+            salida.writeInt(VERSION);
+            salida.writeInt(fecha);
+
+            // Contenedores no vacíos
+            int num = 0;
+            for (int card : cardinalidades) {
+                num += card > 0 ? 1 : 0;
+            }
+            salida.writeInt(num);
+
+            // Contenedores
+            for (int alto = 0; alto < NUM_CONTENEDORES; alto++) {
+                int card = cardinalidades[alto];
+                if (card == 0) {
+                    continue;
+                }
+                salida.writeShort(alto);
+                salida.writeInt(card);
+                if (bitmaps[alto] != null) {
+                    salida.writeByte(TIPO_BITMAP);
+                    for (long palabra : bitmaps[alto]) {
+                        salida.writeLong(palabra);
+                    }
+                } else {
+                    salida.writeByte(TIPO_ARRAY);
+                    for (int i = 0; i < card; i++) {
+                        salida.writeShort(arrays[alto][i]);
+                    }
+                }
+            }
+        }
+    }
+
+    // Fichero > Bitmap
+    public static BitmapVentas cargar(Path fichero) throws IOException {
+        try (DataInputStream entrada = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(fichero), 1 << 16))) {
+            // Cabecera
+            if (entrada.readInt() != MAGIC || entrada.readInt() != VERSION) {
+                throw new IOException("Datos corruptos");
+            }
+            BitmapVentas bitmap = new BitmapVentas(entrada.readInt());
+
+            // Contenedores
+            int num = entrada.readInt();
+            for (int n = 0; n < num; n++) {
+                int alto = entrada.readUnsignedShort();
+                int card = entrada.readInt();
+                byte tipo = entrada.readByte();
+                if (alto >= NUM_CONTENEDORES || card <= 0 || card > 1 << 16 ||
+                        bitmap.cardinalidades[alto] != 0) {
+                    throw new IOException("Datos corruptos - Contenedor " + alto);
+                }
+                if (tipo == TIPO_BITMAP && card > MAX_ARRAY) {
+                    // Cardinalidad recalculada
+                    long[] bits = new long[1024];
+                    int cuenta = 0;
+                    for (int w = 0; w < bits.length; w++) {
+                        bits[w] = entrada.readLong();
+                        cuenta += Long.bitCount(bits[w]);
+                    }
+                    if (cuenta != card) {
+                        throw new IOException("Datos corruptos - Cardinalidad del contenedor " + alto);
+                    }
+                    bitmap.bitmaps[alto] = bits;
+                } else if (tipo == TIPO_ARRAY && card <= MAX_ARRAY) {
+                    // Valores estrictamente crecientes (Sin signo) - Sin repetidos
+                    short[] lista = new short[card];
+                    for (int i = 0; i < card; i++) {
+                        lista[i] = entrada.readShort();
+                        if (i > 0 && (char) lista[i] <= (char) lista[i - 1]) {
+                            throw new IOException("Datos corruptos - Orden del contenedor " + alto);
+                        }
+                    }
+                    bitmap.arrays[alto] = lista;
+                } else {
+                    throw new IOException("Datos corruptos");
+                }
+                bitmap.cardinalidades[alto] = card;
+                bitmap.cardinalidad += card;
+            }
+
+            // Devolver Bitmap
+            return bitmap;
+        }
+    }
+
+    // Directorio + Fecha > Fichero del sorteo (vendidos_aaaammdd.lnb)
+    public static Path obtenerFichero(Path directorio, int fecha) {
+        String txt = TicketCodec.formatearFecha(fecha);
+        return directorio.resolve("vendidos_" +
+                txt.substring(6) + txt.substring(3, 5) + txt.substring(0, 2) + ".lnb");
+    }
+
+    // Almacén + Índice > Bitmap de los décimos vendidos para un sorteo
+    public static BitmapVentas construir(TicketStore store, IndiceFechas indice, int fecha) {
+        BitmapVentas bitmap = new BitmapVentas(fecha);
+        indice.recorrer(store, fecha, ticket -> bitmap.marcar(calcularClave(ticket)));
+        return bitmap;
+    }
+
+    // Clave dentro del espacio de décimos
+    private static void validarClave(int clave) {
+        if (clave < 0 || clave >= NUM_CLAVES) {
+            throw new IllegalArgumentException("Clave fuera de rango: " + clave);
+        }
+    }
+
+    // Búsqueda binaria sin signo
+    private static int buscar(short[] lista, int card, char valor) {
+        int ini = 0;
+        int fin = card - 1;
+        while (ini <= fin) {
+            int med = (ini + fin) >>> 1;
+            char v = (char) lista[med];
+            if (v < valor) {
+                ini = med + 1;
+            } else if (v > valor) {
+                fin = med - 1;
+            } else {
+                return med;
+            }
+        }
+        return -(ini + 1);
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.models;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import org.japo.java.interfaces.IFuenteSorteos;
+import org.japo.java.libraries.FechaCodec;
+import org.japo.java.libraries.TicketCodec;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class CacheSorteos {
+
+    // Sorteos en memoria por defecto - Sorteo actual y semanas anteriores
+    public static final int DEF_CAPACIDAD = 16;
+
+    // Sorteo en memoria - Tabla construida o en construcción + Último acceso
+    private static final class Entrada {
+
+        private final CompletableFuture<TablaPremios> tabla;
+        private volatile long acceso = System.nanoTime();
+
+        Entrada(CompletableFuture<TablaPremios> tabla) {
+            this.tabla = tabla;
+        }
+    }
+
+    // Origen de los resultados no presentes
+    private final IFuenteSorteos fuente;
+    private final int capacidad;
+
+    // Día epoch > Sorteo - Consultas sin bloqueo
+    private final Map<Integer, Entrada> tablas = new ConcurrentHashMap<>();
+
+    // Contadores - Sin bloqueo
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder expulsiones = new LongAdder();
+
+    // Constructor Parametrizado - Capacidad por defecto
+    public CacheSorteos(IFuenteSorteos fuente) {
+        this(fuente, DEF_CAPACIDAD);
+    }
+
+    // Constructor Parametrizado - Expulsa el sorteo usado hace más tiempo
+    public CacheSorteos(IFuenteSorteos fuente, int capacidad) {
+        if (capacidad < 1) {
+            throw new IllegalArgumentException("Capacidad: " + capacidad);
+        }
+        this.fuente = fuente;
+        this.capacidad = capacidad;
+    }
+
+    // Día epoch > Tabla de premios - El primer fallo la construye y el resto espera
+    public TablaPremios obtener(int fecha) throws Exception {
+        // Acierto - Incluye la espera de una construcción en curso
+        Entrada entrada = tablas.get(fecha);
+        if (entrada == null) {
+            // Fallo - Solo un hilo registra la entrada nueva
+            Entrada nueva = new Entrada(new CompletableFuture<>());
+            entrada = tablas.putIfAbsent(fecha, nueva);
+            if (entrada == null) {
+                fallos.increment();
+                expulsar();
+                return construir(fecha, nueva);
+            }
+        }
+        entrada.acceso = System.nanoTime();
+        aciertos.increment();
+        return esperar(entrada.tabla);
+    }
+
+    // Día epoch > Resultado del sorteo
+    public ResultadoSorteo obtenerResultado(int fecha) throws Exception {
+        return obtener(fecha).getResultado();
+    }
+
+    // Importe de un ticket en el sorteo de su fecha (céntimos)
+    public long consultarPremio(long ticket) throws Exception {
+        return obtener(TicketCodec.fecha(ticket)).consultarPremio(ticket);
+    }
+
+    // Resultado conocido > Tabla en memoria (Reemplaza la anterior de esa fecha)
+    public TablaPremios anyadir(ResultadoSorteo resultado) {
+        TablaPremios tabla = new TablaPremios(resultado);
+        tablas.put(resultado.getFecha(), new Entrada(CompletableFuture.completedFuture(tabla)));
+        expulsar();
+        return tabla;
+    }
+
+    // Descarta un sorteo (Resultado corregido)
+    public void invalidar(int fecha) {
+        tablas.remove(fecha);
+    }
+
+    // Descarta todos los sorteos
+    public void limpiar() {
+        tablas.clear();
+    }
+
+    // Sorteos en memoria
+    public int getTamanyo() {
+        return tablas.size();
+    }
+
+    public long getAciertos() {
+        return aciertos.sum();
+    }
+
+    public long getFallos() {
+        return fallos.sum();
+    }
+
+    public long getExpulsiones() {
+        return expulsiones.sum();
+    }
+
+    // Aciertos / Consultas (0 sin consultas)
+    public double obtenerTasaAciertos() {
+        long a = aciertos.sum();
+        long total = a + fallos.sum();
+        return total == 0 ? 0 : (double) a / total;
+    }
+
+    // Entrada registrada por este hilo > Tabla - Carga fuera de todo bloqueo
+    private TablaPremios construir(int fecha, Entrada entrada) throws Exception {
+        try {
+            TablaPremios tabla = new TablaPremios(cargar(fecha));
+            entrada.tabla.complete(tabla);
+            return tabla;
+        } catch (Exception | Error e) {
+            // Fallo - Se retira para que otra consulta lo reintente
+            tablas.remove(fecha, entrada);
+            entrada.tabla.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // Exceso de capacidad > Expulsión del sorteo con el acceso más antiguo
+    private synchronized void expulsar() {
+        while (tablas.size() > capacidad) {
+            Map.Entry<Integer, Entrada> antigua = null;
+            for (Map.Entry<Integer, Entrada> e : tablas.entrySet()) {
+                if (antigua == null || e.getValue().acceso - antigua.getValue().acceso < 0) {
+                    antigua = e;
+                }
+            }
+            if (antigua != null && tablas.remove(antigua.getKey(), antigua.getValue())) {
+                expulsiones.increment();
+            }
+        }
+    }
+
+    // Fuente > Resultado validado de la fecha
+    private ResultadoSorteo cargar(int fecha) throws Exception {
+        ResultadoSorteo resultado = fuente.cargar(fecha);
+        if (resultado == null) {
+            throw new Exception("Sorteo no disponible - " + FechaCodec.formatear(fecha));
+        }
+        if (resultado.getFecha() != fecha) {
+            throw new Exception("Datos corruptos - Sorteo del "
+                    + FechaCodec.formatear(resultado.getFecha()));
+        }
+        return resultado;
+    }
+
+    // Tabla en construcción por otro hilo > Tabla / Error de su carga
+    private static TablaPremios esperar(CompletableFuture<TablaPremios> futura) throws Exception {
+        try {
+            return futura.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof Exception) {
+                throw (Exception) causa;
+            }
+            throw (Error) causa;
+        }
+    }
+}
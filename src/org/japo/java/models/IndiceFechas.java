@@ -0,0 +1,203 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.models;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class IndiceFechas {
+
+    // Rango máximo de días para el recuento directo (Si no, búsqueda binaria)
+    public static final int MAX_RANGO_DIRECTO = 1 << 16;
+
+    // Días epoch distintos - Orden ascendente
+    private final int[] fechas;
+
+    // Inicio de cada fecha en la lista de filas - fechas.length + 1 entradas
+    private final int[] inicios;
+
+    // Filas agrupadas por fecha - Orden ascendente dentro de cada fecha
+    private final int[] filas;
+
+    // Constructor Parametrizado - Instantánea de las filas publicadas del almacén
+    public IndiceFechas(TicketStore store) {
+        // Columna de fechas
+        int num = store.getFilas();
+        int[] columna = new int[num];
+        int[] pos = new int[1];
+        store.recorrerColumna(Model.POS_FECHA, 0, num, fecha -> columna[pos[0]++] = fecha);
+
+        // Rango de fechas
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int fecha : columna) {
+            min = Math.min(min, fecha);
+            max = Math.max(max, fecha);
+        }
+
+        // Fecha > Posición - Tabla directa / Búsqueda binaria
+        int[] ranuras = null;
+        if (num > 0 && (long) max - min < MAX_RANGO_DIRECTO) {
+            ranuras = new int[max - min + 1];
+            for (int fecha : columna) {
+                ranuras[fecha - min] = 1;
+            }
+            int k = 0;
+            for (int i = 0; i < ranuras.length; i++) {
+                ranuras[i] = ranuras[i] != 0 ? k++ : -1;
+            }
+            fechas = new int[k];
+            for (int i = 0; i < ranuras.length; i++) {
+                if (ranuras[i] >= 0) {
+                    fechas[ranuras[i]] = min + i;
+                }
+            }
+        } else {
+            fechas = distintas(columna);
+        }
+
+        // Recuento por fecha > Inicios
+        inicios = new int[fechas.length + 1];
+        for (int fila = 0; fila < num; fila++) {
+            int f = columna[fila];
+            columna[fila] = ranuras != null ? ranuras[f - min] : Arrays.binarySearch(fechas, f);
+            inicios[columna[fila] + 1]++;
+        }
+        for (int i = 0; i < fechas.length; i++) {
+            inicios[i + 1] += inicios[i];
+        }
+
+        // Reparto estable de las filas
+        filas = new int[num];
+        int[] siguiente = Arrays.copyOf(inicios, fechas.length);
+        for (int fila = 0; fila < num; fila++) {
+            filas[siguiente[columna[fila]]++] = fila;
+        }
+    }
+
+    // Filas indexadas
+    public int getFilas() {
+        return filas.length;
+    }
+
+    // Fechas distintas
+    public int getNumFechas() {
+        return fechas.length;
+    }
+
+    // Fechas distintas - Copia en orden ascendente
+    public int[] getFechas() {
+        return fechas.clone();
+    }
+
+    // Tickets de una fecha
+    public int contar(int fecha) {
+        return contar(fecha, fecha);
+    }
+
+    // Tickets entre dos fechas - [desde, hasta]
+    public int contar(int desde, int hasta) {
+        return Math.max(0, inicios[buscar(hasta, true)] - inicios[buscar(desde, false)]);
+    }
+
+    // Filas de una fecha
+    public void recorrerFilas(int fecha, IntConsumer consumidor) {
+        recorrerFilas(fecha, fecha, consumidor);
+    }
+
+    // Filas entre dos fechas - [desde, hasta] por fecha y fila
+    public void recorrerFilas(int desde, int hasta, IntConsumer consumidor) {
+        int fin = inicios[buscar(hasta, true)];
+        for (int i = inicios[buscar(desde, false)]; i < fin; i++) {
+            consumidor.accept(filas[i]);
+        }
+    }
+
+    // Tickets de una fecha
+    public void recorrer(TicketStore store, int fecha, LongConsumer consumidor) {
+        recorrer(store, fecha, fecha, consumidor);
+    }
+
+    // Tickets entre dos fechas - [desde, hasta]
+    public void recorrer(TicketStore store, int desde, int hasta, LongConsumer consumidor) {
+        recorrerFilas(desde, hasta, fila -> consumidor.accept(store.obtener(fila)));
+    }
+
+    // Iterador de tickets entre dos fechas - [desde, hasta]
+    public PrimitiveIterator.OfLong iterador(final TicketStore store, int desde, int hasta) {
+        final int ini = inicios[buscar(desde, false)];
+        final int fin = inicios[buscar(hasta, true)];
+        return new PrimitiveIterator.OfLong() {
+            private int i = ini;
+
+            @Override
+            public boolean hasNext() {
+                return i < fin;
+            }
+
+            @Override
+            public long nextLong() {
+                if (i >= fin) {
+                    throw new NoSuchElementException();
+                }
+                return store.obtener(filas[i++]);
+            }
+        };
+    }
+
+    // Posición en la lista de filas - [ini, fin) de las filas de la fecha
+    public int obtenerInicio(int fecha) {
+        return inicios[buscar(fecha, false)];
+    }
+
+    public int obtenerFin(int fecha) {
+        return inicios[buscar(fecha, true)];
+    }
+
+    // Posición en la lista de filas > Fila
+    public int obtenerFila(int pos) {
+        return filas[pos];
+    }
+
+    // Fecha > Índice de la primera fecha posterior (incluida) o no anterior
+    private int buscar(int fecha, boolean incluida) {
+        int pos = Arrays.binarySearch(fechas, fecha);
+        if (pos < 0) {
+            return -pos - 1;
+        }
+        return incluida ? pos + 1 : pos;
+    }
+
+    // Columna > Valores distintos ordenados
+    private static int[] distintas(int[] columna) {
+        int[] copia = columna.clone();
+        Arrays.parallelSort(copia);
+        int k = 0;
+        for (int i = 0; i < copia.length; i++) {
+            if (k == 0 || copia[i] != copia[k - 1]) {
+                copia[k++] = copia[i];
+            }
+        }
+        return Arrays.copyOf(copia, k);
+    }
+}
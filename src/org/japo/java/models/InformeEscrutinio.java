@@ -0,0 +1,146 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.models;
+
+import org.japo.java.libraries.TicketCodec;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class InformeEscrutinio {
+
+    // Pagos acumulados (céntimos)
+    private final long[] porCategoria = new long[ResultadoSorteo.NUM_CATEGORIAS];
+    private final long[] porSerie = new long[TicketCodec.MAX_SERIE + 1];
+    private final long[] porPuntoVenta;
+
+    // Contadores
+    private long procesados;
+    private long escrutados;
+    private long premiados;
+    private long total;
+
+    // Duración del escrutinio
+    private long nanos;
+
+    // Constructor Parametrizado
+    public InformeEscrutinio(int numPuntosVenta) {
+        this.porPuntoVenta = new long[numPuntosVenta];
+    }
+
+    // Acumula un décimo del sorteo
+    public void acumular(TablaPremios tabla, int numero, int serie, int fraccion, int puntoVenta) {
+        // Décimo escrutado
+        escrutados++;
+
+        // Premio del número
+        int mascara = tabla.consultarCategorias(numero);
+        boolean especial = tabla.esEspecial(numero, serie, fraccion);
+        if (mascara == 0 && !especial) {
+            return;
+        }
+
+        // Premio por categoría
+        ResultadoSorteo resultado = tabla.getResultado();
+        while (mascara != 0) {
+            int cat = Integer.numberOfTrailingZeros(mascara);
+            porCategoria[cat] += resultado.getImporte(cat);
+            mascara &= mascara - 1;
+        }
+        if (especial) {
+            porCategoria[ResultadoSorteo.CAT_ESPECIAL] += resultado.getImporte(ResultadoSorteo.CAT_ESPECIAL);
+        }
+
+        // Premio del décimo
+        long premio = tabla.consultarPremio(numero, serie, fraccion);
+        porSerie[serie] += premio;
+        porPuntoVenta[puntoVenta] += premio;
+        total += premio;
+        premiados++;
+    }
+
+    // Suma de procesados (Incluye otros sorteos)
+    public void contarProcesados(long num) {
+        procesados += num;
+    }
+
+    // Fusión de acumuladores parciales
+    public void fusionar(InformeEscrutinio otro) {
+        for (int i = 0; i < porCategoria.length; i++) {
+            porCategoria[i] += otro.porCategoria[i];
+        }
+        for (int i = 0; i < porSerie.length; i++) {
+            porSerie[i] += otro.porSerie[i];
+        }
+        for (int i = 0; i < porPuntoVenta.length; i++) {
+            porPuntoVenta[i] += otro.porPuntoVenta[i];
+        }
+        procesados += otro.procesados;
+        escrutados += otro.escrutados;
+        premiados += otro.premiados;
+        total += otro.total;
+    }
+
+    // --- INICIO GETTERS / SETTERS
+    //
+    public long getPagoCategoria(int categoria) {
+        return porCategoria[categoria];
+    }
+
+    public long getPagoSerie(int serie) {
+        return porSerie[serie];
+    }
+
+    public long getPagoPuntoVenta(int puntoVenta) {
+        return porPuntoVenta[puntoVenta];
+    }
+
+    public int getNumPuntosVenta() {
+        return porPuntoVenta.length;
+    }
+
+    public long getProcesados() {
+        return procesados;
+    }
+
+    public long getEscrutados() {
+        return escrutados;
+    }
+
+    public long getPremiados() {
+        return premiados;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public void setNanos(long nanos) {
+        this.nanos = nanos;
+    }
+
+    // --- FIN GETTERS / SETTERS
+
+    // Tickets procesados por segundo
+    public double obtenerTicketsSegundo() {
+        return nanos > 0 ? procesados * 1e9 / nanos : 0;
+    }
+}
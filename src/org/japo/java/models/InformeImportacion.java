@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.models;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class InformeImportacion {
+
+    // Estadísticas por trabajador
+    public static final class Trabajador {
+
+        private long tickets;
+        private long bytes;
+        private long nanos;
+        private int bloques;
+
+        public long getTickets() {
+            return tickets;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public int getBloques() {
+            return bloques;
+        }
+
+        // Tickets por segundo de trabajo efectivo
+        public double obtenerTicketsSegundo() {
+            return nanos > 0 ? tickets * 1e9 / nanos : 0;
+        }
+    }
+
+    // Totales
+    private long tickets;
+    private long bytes;
+    private long nanos;
+
+    // Trabajadores por nombre de hilo
+    private final Map<String, Trabajador> trabajadores = new TreeMap<>();
+
+    // Acumula un bloque procesado
+    public synchronized void acumularBloque(String hilo, long tickets, long bytes, long nanos) {
+        Trabajador t = trabajadores.computeIfAbsent(hilo, k -> new Trabajador());
+        t.tickets += tickets;
+        t.bytes += bytes;
+        t.nanos += nanos;
+        t.bloques++;
+        this.tickets += tickets;
+        this.bytes += bytes;
+    }
+
+    // --- INICIO GETTERS / SETTERS
+    //
+    public synchronized long getTickets() {
+        return tickets;
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized Map<String, Trabajador> getTrabajadores() {
+        return new TreeMap<>(trabajadores);
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public void setNanos(long nanos) {
+        this.nanos = nanos;
+    }
+
+    // --- FIN GETTERS / SETTERS
+
+    // Tickets por segundo (Tiempo total)
+    public synchronized double obtenerTicketsSegundo() {
+        return nanos > 0 ? tickets * 1e9 / nanos : 0;
+    }
+
+    // MB por segundo (Tiempo total)
+    public synchronized double obtenerMBSegundo() {
+        return nanos > 0 ? bytes / 1048576.0 * 1e9 / nanos : 0;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.models;
+
+import java.util.Arrays;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class InformeSimulacion {
+
+    // Pago de cada sorteo simulado (céntimos) - Orden ascendente
+    private final long[] pagos;
+
+    // Estadísticos
+    private final double media;
+    private final double desviacion;
+    private final long nanos;
+    private final long semilla;
+
+    // Constructor Parametrizado - Ordena los pagos recibidos
+    public InformeSimulacion(long[] pagos, long semilla, long nanos) {
+        // Ordenación para los percentiles
+        Arrays.parallelSort(pagos);
+        this.pagos = pagos;
+        this.semilla = semilla;
+        this.nanos = nanos;
+
+        // Media y desviación típica
+        double suma = 0;
+        for (long pago : pagos) {
+            suma += pago;
+        }
+        media = pagos.length > 0 ? suma / pagos.length : 0;
+        double cuadrados = 0;
+        for (long pago : pagos) {
+            cuadrados += (pago - media) * (pago - media);
+        }
+        desviacion = pagos.length > 0 ? Math.sqrt(cuadrados / pagos.length) : 0;
+    }
+
+    // --- INICIO GETTERS
+    //
+    public int getSimulaciones() {
+        return pagos.length;
+    }
+
+    public double getMedia() {
+        return media;
+    }
+
+    public double getDesviacion() {
+        return desviacion;
+    }
+
+    public long getMinimo() {
+        return pagos.length > 0 ? pagos[0] : 0;
+    }
+
+    public long getMaximo() {
+        return pagos.length > 0 ? pagos[pagos.length - 1] : 0;
+    }
+
+    public long getSemilla() {
+        return semilla;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    // --- FIN GETTERS
+
+    // Percentil [0, 100] - Rango más próximo
+    public long obtenerPercentil(double percentil) {
+        if (pagos.length == 0) {
+            return 0;
+        }
+        int pos = (int) Math.ceil(percentil / 100 * pagos.length) - 1;
+        return pagos[Math.max(0, Math.min(pagos.length - 1, pos))];
+    }
+
+    // Fracción de sorteos con un pago superior al umbral
+    public double obtenerProbabilidadSuperar(long umbral) {
+        int pos = Arrays.binarySearch(pagos, umbral + 1);
+        if (pos < 0) {
+            pos = -pos - 1;
+        } else {
+            while (pos > 0 && pagos[pos - 1] > umbral) {
+                pos--;
+            }
+        }
+        return pagos.length > 0 ? (double) (pagos.length - pos) / pagos.length : 0;
+    }
+
+    // Sorteos simulados por segundo
+    public double obtenerSorteosSegundo() {
+        return nanos > 0 ? pagos.length * 1e9 / nanos : 0;
+    }
+}
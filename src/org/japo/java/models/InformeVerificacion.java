@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.models;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class InformeVerificacion {
+
+    // Totales
+    private long bloques;
+    private long bytes;
+    private long nanos;
+
+    // Bloques corruptos - Índice > Desplazamiento en el fichero
+    private final SortedMap<Long, Long> corruptos = new TreeMap<>();
+
+    // Acumula un bloque comprobado
+    public synchronized void acumularBloque(long bytes) {
+        this.bloques++;
+        this.bytes += bytes;
+    }
+
+    // Registra un bloque corrupto
+    public synchronized void anyadirCorrupto(long bloque, long desplazamiento) {
+        corruptos.put(bloque, desplazamiento);
+    }
+
+    // --- INICIO GETTERS / SETTERS
+    //
+    public synchronized long getBloques() {
+        return bloques;
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized SortedMap<Long, Long> getCorruptos() {
+        return new TreeMap<>(corruptos);
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public void setNanos(long nanos) {
+        this.nanos = nanos;
+    }
+
+    // --- FIN GETTERS / SETTERS
+
+    // Sin bloques corruptos
+    public synchronized boolean isValido() {
+        return corruptos.isEmpty();
+    }
+
+    // Primer bloque corrupto > Mensaje / null
+    public synchronized String obtenerPrimerError() {
+        return corruptos.isEmpty()
+                ? null
+                : String.format("Datos corruptos - Bloque %d en byte %d",
+                        corruptos.firstKey(), corruptos.get(corruptos.firstKey()));
+    }
+
+    // MB por segundo (Tiempo total)
+    public synchronized double obtenerMBSegundo() {
+        return nanos > 0 ? bytes / 1048576.0 * 1e9 / nanos : 0;
+    }
+}
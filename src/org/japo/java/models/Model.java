@@ -17,7 +17,7 @@ package org.japo.java.models;
 
 import java.io.Serializable;
 import org.japo.java.libraries.UtilesFecha;
-import org.japo.java.libraries.UtilesValidacion;
+import org.japo.java.libraries.ValidadorModelo;
 
 /**
  *
@@ -25,6 +25,9 @@ import org.japo.java.libraries.UtilesValidacion;
  */
 public class Model implements Serializable {
 
+    // Versión de serialización - La de los ficheros SBIN existentes
+    private static final long serialVersionUID = 1949889426427525690L;
+
     // Número de items
     public static final int NUM_ITEMS = 5;
 
@@ -55,6 +58,9 @@ public class Model implements Serializable {
     private String fecha;
     private String precio;
 
+    // Cambios desde la última confirmación - No se persiste
+    private transient boolean modificado;
+
     // Constructor Predeterminado
     public Model() {
         numero = DEF_NUMERO;
@@ -67,21 +73,21 @@ public class Model implements Serializable {
     // Constructor Parametrizado
     public Model(String numero, String serie, String fraccion, String fecha, String precio) {
         // Número
-        if (UtilesValidacion.validarDato(numero, ER_NUMERO)) {
+        if (ValidadorModelo.validarNumero(numero)) {
             this.numero = numero;
         } else {
             this.numero = DEF_NUMERO;
         }
 
         // Serie
-        if (UtilesValidacion.validarDato(serie, ER_SERIE)) {
+        if (ValidadorModelo.validarSerie(serie)) {
             this.serie = serie;
         } else {
             this.serie = DEF_SERIE;
         }
 
         // Fracción
-        if (UtilesValidacion.validarDato(fraccion, ER_FRACCION)) {
+        if (ValidadorModelo.validarFraccion(fraccion)) {
             this.fraccion = fraccion;
         } else {
             this.fraccion = DEF_FRACCION;
@@ -95,7 +101,7 @@ public class Model implements Serializable {
         }
 
         // Precio
-        if (UtilesValidacion.validarDato(precio, ER_PRECIO)) {
+        if (ValidadorModelo.validarPrecio(precio)) {
             this.precio = precio;
         } else {
             this.precio = DEF_PRECIO;
@@ -109,7 +115,8 @@ public class Model implements Serializable {
     }
 
     public void setNumero(String numero) {
-        if (UtilesValidacion.validarDato(numero, ER_NUMERO)) {
+        if (ValidadorModelo.validarNumero(numero)) {
+            modificado |= !numero.equals(this.numero);
             this.numero = numero;
         }
     }
@@ -119,7 +126,8 @@ public class Model implements Serializable {
     }
 
     public void setSerie(String serie) {
-        if (UtilesValidacion.validarDato(serie, ER_SERIE)) {
+        if (ValidadorModelo.validarSerie(serie)) {
+            modificado |= !serie.equals(this.serie);
             this.serie = serie;
         }
     }
@@ -129,7 +137,8 @@ public class Model implements Serializable {
     }
 
     public void setFraccion(String fraccion) {
-        if (UtilesValidacion.validarDato(fraccion, ER_FRACCION)) {
+        if (ValidadorModelo.validarFraccion(fraccion)) {
+            modificado |= !fraccion.equals(this.fraccion);
             this.fraccion = fraccion;
         }
     }
@@ -140,6 +149,7 @@ public class Model implements Serializable {
 
     public void setFecha(String fecha) {
         if (UtilesFecha.validarFecha(fecha)) {
+            modificado |= !fecha.equals(this.fecha);
             this.fecha = fecha;
         }
     }
@@ -149,10 +159,21 @@ public class Model implements Serializable {
     }
 
     public void setPrecio(String precio) {
-        if (UtilesValidacion.validarDato(precio, ER_PRECIO)) {
+        if (ValidadorModelo.validarPrecio(precio)) {
+            modificado |= !precio.equals(this.precio);
             this.precio = precio;
         }
     }
 
     // --- FIN SETTERS / GETTERS
+
+    // Algún campo cambiado por los setters
+    public boolean isModificado() {
+        return modificado;
+    }
+
+    // Estado actual como confirmado
+    public void limpiarModificado() {
+        modificado = false;
+    }
 }
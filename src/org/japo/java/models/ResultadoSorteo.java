@@ -0,0 +1,254 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.models;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Properties;
+import org.japo.java.libraries.FechaCodec;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class ResultadoSorteo {
+
+    // Categorías de premio
+    public static final int CAT_PRIMERO = 0;
+    public static final int CAT_SEGUNDO = 1;
+    public static final int CAT_TERCERO = 2;
+    public static final int CAT_APROX_PRIMERO = 3;
+    public static final int CAT_APROX_SEGUNDO = 4;
+    public static final int CAT_APROX_TERCERO = 5;
+    public static final int CAT_CENTENA_PRIMERO = 6;
+    public static final int CAT_CENTENA_SEGUNDO = 7;
+    public static final int CAT_CENTENA_TERCERO = 8;
+    public static final int CAT_TRES_CIFRAS = 9;
+    public static final int CAT_DOS_CIFRAS = 10;
+    public static final int CAT_REINTEGRO = 11;
+    public static final int CAT_ESPECIAL = 12;
+
+    // Número de categorías
+    public static final int NUM_CATEGORIAS = 13;
+
+    // Nombres de las categorías
+    public static final String[] NOMBRE_CATEGORIA = {
+        "primero", "segundo", "tercero",
+        "aproximación primero", "aproximación segundo", "aproximación tercero",
+        "centena primero", "centena segundo", "centena tercero",
+        "tres cifras", "dos cifras", "reintegro", "especial"};
+
+    // Premio no sorteado
+    public static final int SIN_PREMIO = -1;
+
+    // Propiedades del fichero de resultados
+    public static final String PRP_FECHA = "sorteo.fecha";
+    public static final String PRP_PRIMERO = "sorteo.primero";
+    public static final String PRP_SEGUNDO = "sorteo.segundo";
+    public static final String PRP_TERCERO = "sorteo.tercero";
+    public static final String PRP_SERIE_ESPECIAL = "sorteo.serie_especial";
+    public static final String PRP_FRACCION_ESPECIAL = "sorteo.fraccion_especial";
+    public static final String PRP_TRES_CIFRAS = "sorteo.tres_cifras";
+    public static final String PRP_DOS_CIFRAS = "sorteo.dos_cifras";
+    public static final String PRP_REINTEGROS = "sorteo.reintegros";
+    public static final String PRP_IMPORTES = "sorteo.importes";     // Céntimos por categoría
+
+    // Día epoch del sorteo
+    private final int fecha;
+
+    // Números premiados
+    private final int primero;
+    private final int segundo;
+    private final int tercero;
+
+    // Premio especial al décimo (Primer premio)
+    private final int serieEspecial;
+    private final int fraccionEspecial;
+
+    // Terminaciones y reintegros
+    private final int[] tresCifras;
+    private final int[] dosCifras;
+    private final int[] reintegros;
+
+    // Importe por décimo de cada categoría (céntimos)
+    private final long[] importes;
+
+    // Constructor Parametrizado
+    public ResultadoSorteo(int fecha, int primero, int segundo, int tercero,
+            int serieEspecial, int fraccionEspecial,
+            int[] tresCifras, int[] dosCifras, int[] reintegros, long[] importes) {
+        // Validar Importes
+        if (importes.length != NUM_CATEGORIAS) {
+            throw new IllegalArgumentException("Importes: " + importes.length);
+        }
+
+        // Validar Números
+        validarRango(primero, 99999);
+        validarRango(segundo, 99999);
+        validarRango(tercero, 99999);
+        validarLista(tresCifras, 999);
+        validarLista(dosCifras, 99);
+        validarLista(reintegros, 9);
+
+        // Memorizar Datos
+        this.fecha = fecha;
+        this.primero = primero;
+        this.segundo = segundo;
+        this.tercero = tercero;
+        this.serieEspecial = serieEspecial;
+        this.fraccionEspecial = fraccionEspecial;
+        this.tresCifras = tresCifras.clone();
+        this.dosCifras = dosCifras.clone();
+        this.reintegros = reintegros.clone();
+        this.importes = importes.clone();
+    }
+
+    // --- INICIO GETTERS
+    //
+    public int getFecha() {
+        return fecha;
+    }
+
+    public int getPrimero() {
+        return primero;
+    }
+
+    public int getSegundo() {
+        return segundo;
+    }
+
+    public int getTercero() {
+        return tercero;
+    }
+
+    public int getSerieEspecial() {
+        return serieEspecial;
+    }
+
+    public int getFraccionEspecial() {
+        return fraccionEspecial;
+    }
+
+    public int[] getTresCifras() {
+        return tresCifras.clone();
+    }
+
+    public int[] getDosCifras() {
+        return dosCifras.clone();
+    }
+
+    public int[] getReintegros() {
+        return reintegros.clone();
+    }
+
+    public long getImporte(int categoria) {
+        return importes[categoria];
+    }
+
+    // --- FIN GETTERS
+
+    @Override
+    public String toString() {
+        return "ResultadoSorteo{" + "fecha=" + fecha +
+               ", primero=" + primero + ", segundo=" + segundo + ", tercero=" + tercero +
+               ", tresCifras=" + Arrays.toString(tresCifras) +
+               ", dosCifras=" + Arrays.toString(dosCifras) +
+               ", reintegros=" + Arrays.toString(reintegros) + '}';
+    }
+
+    // Propiedades > Resultado - Números ausentes SIN_PREMIO, listas separadas por comas
+    public static ResultadoSorteo cargar(Properties prp) throws Exception {
+        // Fecha del sorteo
+        int fecha = FechaCodec.convertir(prp.getProperty(PRP_FECHA, ""));
+        if (fecha == FechaCodec.NO_VALIDA) {
+            throw new Exception("Datos corruptos - " + PRP_FECHA);
+        }
+
+        // Importes de todas las categorías
+        long[] importes = new long[NUM_CATEGORIAS];
+        String[] items = prp.getProperty(PRP_IMPORTES, "").split("\\s*,\\s*");
+        if (items.length != NUM_CATEGORIAS) {
+            throw new Exception("Datos corruptos - " + PRP_IMPORTES);
+        }
+        try {
+            for (int i = 0; i < NUM_CATEGORIAS; i++) {
+                importes[i] = Long.parseLong(items[i].trim());
+            }
+
+            // Resultado validado
+            return new ResultadoSorteo(fecha,
+                    cargarNumero(prp, PRP_PRIMERO),
+                    cargarNumero(prp, PRP_SEGUNDO),
+                    cargarNumero(prp, PRP_TERCERO),
+                    cargarNumero(prp, PRP_SERIE_ESPECIAL),
+                    cargarNumero(prp, PRP_FRACCION_ESPECIAL),
+                    cargarLista(prp, PRP_TRES_CIFRAS),
+                    cargarLista(prp, PRP_DOS_CIFRAS),
+                    cargarLista(prp, PRP_REINTEGROS),
+                    importes);
+        } catch (IllegalArgumentException e) {
+            throw new Exception("Datos corruptos - " + e.getMessage(), e);
+        }
+    }
+
+    // Directorio + Fecha > Fichero del sorteo (sorteo_aaaammdd.properties)
+    public static Path obtenerFichero(Path directorio, int fecha) {
+        String txt = FechaCodec.formatear(fecha);
+        return directorio.resolve("sorteo_" +
+                txt.substring(6) + txt.substring(3, 5) + txt.substring(0, 2) + ".properties");
+    }
+
+    // Propiedad > Número / SIN_PREMIO
+    private static int cargarNumero(Properties prp, String clave) {
+        String valor = prp.getProperty(clave, "").trim();
+        return valor.isEmpty() ? SIN_PREMIO : Integer.parseInt(valor);
+    }
+
+    // Propiedad > Lista de números (Vacía si no existe)
+    private static int[] cargarLista(Properties prp, String clave) {
+        String valor = prp.getProperty(clave, "").trim();
+        if (valor.isEmpty()) {
+            return new int[0];
+        }
+        String[] items = valor.split("\\s*,\\s*");
+        int[] lista = new int[items.length];
+        for (int i = 0; i < items.length; i++) {
+            lista[i] = Integer.parseInt(items[i]);
+        }
+        return lista;
+    }
+
+    // Lista de números en rango y sin repetidos - Cada uno se cuenta una vez por categoría
+    private static void validarLista(int[] lista, int max) {
+        boolean[] vistos = new boolean[max + 1];
+        for (int valor : lista) {
+            if (valor < 0 || valor > max) {
+                throw new IllegalArgumentException("Número fuera de rango: " + valor);
+            }
+            if (vistos[valor]) {
+                throw new IllegalArgumentException("Número repetido: " + valor);
+            }
+            vistos[valor] = true;
+        }
+    }
+
+    // Número sorteado o SIN_PREMIO
+    private static void validarRango(int valor, int max) {
+        if (valor != SIN_PREMIO && (valor < 0 || valor > max)) {
+            throw new IllegalArgumentException("Número fuera de rango: " + valor);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.models;
+
+import org.japo.java.libraries.TicketCodec;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class TablaPremios {
+
+    // Números por sorteo
+    public static final int NUM_NUMEROS = TicketCodec.MAX_NUMERO + 1;
+
+    // Resultado de origen
+    private final ResultadoSorteo resultado;
+
+    // Importe por número (céntimos) - Sin el premio especial
+    private final long[] importes = new long[NUM_NUMEROS];
+
+    // Categorías premiadas por número (Máscara de bits)
+    private final short[] categorias = new short[NUM_NUMEROS];
+
+    // Premio especial precalculado
+    private final int primero;
+    private final int serieEspecial;
+    private final int fraccionEspecial;
+    private final long importeEspecial;
+
+    // Constructor Parametrizado - Tabla inmutable
+    public TablaPremios(ResultadoSorteo resultado) {
+        // Memorizar Resultado
+        this.resultado = resultado;
+
+        // Premios mayores
+        int[] mayores = {
+            resultado.getPrimero(), resultado.getSegundo(), resultado.getTercero()};
+        for (int i = 0; i < mayores.length; i++) {
+            int numero = mayores[i];
+            if (numero == ResultadoSorteo.SIN_PREMIO) {
+                continue;
+            }
+
+            // Premio directo
+            sumar(numero, ResultadoSorteo.CAT_PRIMERO + i);
+
+            // Aproximaciones - Anterior y posterior (Circulares)
+            sumar((numero + 1) % NUM_NUMEROS, ResultadoSorteo.CAT_APROX_PRIMERO + i);
+            sumar((numero + NUM_NUMEROS - 1) % NUM_NUMEROS, ResultadoSorteo.CAT_APROX_PRIMERO + i);
+
+            // Centena - Resto de números de la misma centena
+            int base = numero / 100 * 100;
+            for (int n = base; n < base + 100; n++) {
+                if (n != numero) {
+                    sumar(n, ResultadoSorteo.CAT_CENTENA_PRIMERO + i);
+                }
+            }
+        }
+
+        // Terminaciones y reintegros
+        for (int t : resultado.getTresCifras()) {
+            sumarTerminacion(t, 1000, ResultadoSorteo.CAT_TRES_CIFRAS);
+        }
+        for (int t : resultado.getDosCifras()) {
+            sumarTerminacion(t, 100, ResultadoSorteo.CAT_DOS_CIFRAS);
+        }
+        for (int r : resultado.getReintegros()) {
+            sumarTerminacion(r, 10, ResultadoSorteo.CAT_REINTEGRO);
+        }
+
+        // Premio especial
+        this.primero = resultado.getPrimero();
+        this.serieEspecial = resultado.getSerieEspecial();
+        this.fraccionEspecial = resultado.getFraccionEspecial();
+        this.importeEspecial = resultado.getImporte(ResultadoSorteo.CAT_ESPECIAL);
+    }
+
+    public ResultadoSorteo getResultado() {
+        return resultado;
+    }
+
+    // Importe de un décimo (céntimos)
+    public long consultarPremio(int numero, int serie, int fraccion) {
+        // Premio por número
+        long premio = importes[numero];
+
+        // Premio especial al décimo
+        if (esEspecial(numero, serie, fraccion)) {
+            premio += importeEspecial;
+        }
+
+        // Devolver Premio
+        return premio;
+    }
+
+    // Importe de un ticket (céntimos)
+    public long consultarPremio(long ticket) {
+        return consultarPremio(
+                TicketCodec.numero(ticket),
+                TicketCodec.serie(ticket),
+                TicketCodec.fraccion(ticket));
+    }
+
+    // Importe por número (céntimos) - Sin el premio especial
+    public long consultarImporte(int numero) {
+        return importes[numero];
+    }
+
+    // Categorías premiadas de un número (Máscara de bits)
+    public int consultarCategorias(int numero) {
+        return categorias[numero];
+    }
+
+    // Décimo con premio especial
+    public boolean esEspecial(int numero, int serie, int fraccion) {
+        return numero == primero && serie == serieEspecial &&
+               fraccion == fraccionEspecial && primero != ResultadoSorteo.SIN_PREMIO;
+    }
+
+    // Terminación > Números premiados
+    private void sumarTerminacion(int terminacion, int modulo, int categoria) {
+        if (terminacion != ResultadoSorteo.SIN_PREMIO) {
+            for (int n = terminacion; n < NUM_NUMEROS; n += modulo) {
+                sumar(n, categoria);
+            }
+        }
+    }
+
+    // Premios acumulables por número
+    private void sumar(int numero, int categoria) {
+        long importe = resultado.getImporte(categoria);
+        if (importe > 0) {
+            importes[numero] += importe;
+            categorias[numero] |= 1 << categoria;
+        }
+    }
+}
@@ -0,0 +1,550 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.models;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import org.japo.java.libraries.TicketCodec;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class TicketLedger implements Closeable {
+
+    // Ficheros del registro
+    public static final String FICHERO_ALMACEN = "tickets.lnts";
+    public static final String FICHERO_SOMBRA = "tickets.lnts.tmp";
+    public static final String FICHERO_WAL = "tickets.wal";
+    public static final String FICHERO_WAL_ANTERIOR = "tickets.wal.ant";
+
+    // Cabecera del WAL - Magic + Versión + Reservado
+    public static final int MAGIC_WAL = 0x4C41574C;     // LWAL
+    public static final int VERSION_WAL = 1;
+    public static final int TAM_CABECERA_WAL = 16;
+
+    // Registro del WAL - Tipo + Fila + Ticket + CRC32 (Little endian)
+    public static final byte TIPO_ALTA = 1;
+    public static final byte TIPO_CAMBIO = 2;
+    public static final int TAM_DATOS = 1 + 4 + 8;
+    public static final int TAM_REGISTRO = TAM_DATOS + 4;
+
+    // Buffer de escritura del WAL (Uno activo + uno en volcado)
+    public static final int TAM_BUFFER = 1 << 20;
+
+    // Tamaño del WAL que provoca un checkpoint - Acota la recuperación
+    public static final long DEF_MAX_WAL = 64L << 20;
+
+    // Almacén en memoria - El fichero de checkpoint solo se escribe en checkpoint()
+    private final TicketStore store;
+    private final Path directorio;
+    private final long maxWal;
+
+    // WAL actual - Se rota al iniciar un checkpoint (Cerrojo tomado, sin volcado)
+    private FileChannel wal;
+
+    // Último registro incluido en el fichero de checkpoint
+    private long lsnCheckpoint;
+
+    // Copia del almacén en curso - WAL anterior pendiente de borrar
+    private boolean copiando;
+
+    // Buffers del WAL - reserva == null durante un volcado
+    private ByteBuffer activo = ByteBuffer.allocateDirect(TAM_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+    private ByteBuffer reserva = ByteBuffer.allocateDirect(TAM_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+    private final CRC32 crc = new CRC32();
+
+    // Secuencia de registros - Asignados / En fichero / Durables
+    private long lsn;
+    private long lsnEscrito;
+    private long lsnDurable;
+    private boolean volcando;
+    private IOException fallo;
+
+    // Registros recuperados en la apertura
+    private final long recuperados;
+
+    // Constructor Parametrizado - Límite de WAL predeterminado
+    public TicketLedger(Path directorio) throws IOException {
+        this(directorio, DEF_MAX_WAL);
+    }
+
+    // Constructor Parametrizado - Apertura + Recuperación
+    public TicketLedger(Path directorio, long maxWal) throws IOException {
+        this.maxWal = maxWal;
+        this.directorio = directorio;
+
+        // Último checkpoint > Memoria - Sombra de un checkpoint interrumpido descartada
+        Files.createDirectories(directorio);
+        Files.deleteIfExists(directorio.resolve(FICHERO_SOMBRA));
+        this.store = new TicketStore();
+        try {
+            Path fichero = directorio.resolve(FICHERO_ALMACEN);
+            if (Files.exists(fichero)) {
+                try (TicketStore checkpoint = new TicketStore(fichero)) {
+                    checkpoint.recorrer(store::insertar);
+                }
+            }
+
+            // WAL anterior de un checkpoint interrumpido - Se reproduce primero
+            Path anterior = directorio.resolve(FICHERO_WAL_ANTERIOR);
+            long num = 0;
+            boolean interrumpido = Files.exists(anterior);
+            if (interrumpido) {
+                try (FileChannel canal = FileChannel.open(anterior,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    validarCabeceraWal(canal);
+                    num = reproducir(canal);
+                }
+            }
+
+            // WAL
+            this.wal = abrirWal();
+            try {
+                // Cabecera + Reproducción de los registros completos
+                if (wal.size() < TAM_CABECERA_WAL) {
+                    reiniciarWal();
+                } else {
+                    validarCabeceraWal(wal);
+                    num += reproducir(wal);
+                }
+                this.recuperados = num;
+
+                // Registros recuperados - Ya durables y pendientes de checkpoint
+                lsn = recuperados;
+                lsnEscrito = recuperados;
+                lsnDurable = recuperados;
+
+                // Checkpoint interrumpido - Se completa con todo lo recuperado
+                if (interrumpido) {
+                    volcarAlmacen(store.getFilas());
+                    Files.delete(anterior);
+                    reiniciarWal();
+                    sincronizarDirectorio();
+                    lsnCheckpoint = lsn;
+                }
+            } catch (IOException | RuntimeException e) {
+                wal.close();
+                throw e;
+            }
+        } catch (IOException | RuntimeException e) {
+            store.close();
+            throw e;
+        }
+    }
+
+    // Almacén de lectura - Refleja todos los registros aceptados
+    public TicketStore getStore() {
+        return store;
+    }
+
+    // Registros del WAL aplicados en la apertura
+    public long getRecuperados() {
+        return recuperados;
+    }
+
+    // Último registro asignado
+    public synchronized long getLsn() {
+        return lsn;
+    }
+
+    // Ticket nuevo > Fila (Durable tras confirmar)
+    public synchronized int anyadir(long ticket) throws IOException {
+        validarTicket(ticket);
+        int fila = store.getFilas();
+        registrar(TIPO_ALTA, fila, ticket);
+        store.insertar(ticket);
+        return fila;
+    }
+
+    // Cambio de una fila existente (Durable tras confirmar)
+    public synchronized void modificar(int fila, long ticket) throws IOException {
+        validarTicket(ticket);
+        if (fila < 0 || fila >= store.getFilas()) {
+            throw new IndexOutOfBoundsException("Fila " + fila);
+        }
+        registrar(TIPO_CAMBIO, fila, ticket);
+        store.actualizar(fila, ticket);
+    }
+
+    // Todos los registros asignados > Disco
+    public void confirmar() throws IOException {
+        confirmar(getLsn());
+    }
+
+    // Registros hasta lsn > Disco - Confirmación en grupo (Un fsync por lote)
+    public void confirmar(long objetivo) throws IOException {
+        ByteBuffer lote;
+        long hasta;
+        synchronized (this) {
+            // Espera - Otro hilo vuelca un lote que puede incluir el nuestro
+            while (lsnDurable < objetivo && volcando) {
+                esperar();
+            }
+            if (lsnDurable >= objetivo) {
+                return;
+            }
+            comprobarFallo();
+
+            // Lider del lote - Toma el buffer activo
+            volcando = true;
+            lote = activo;
+            activo = reserva;
+            reserva = null;
+            hasta = lsn;
+        }
+
+        // Escritura + fsync sin el cerrojo - Los escritores siguen llenando el activo
+        IOException error = null;
+        try {
+            escribir(lote);
+            wal.force(false);
+        } catch (IOException e) {
+            error = e;
+        }
+
+        // Fin del lote
+        synchronized (this) {
+            lote.clear();
+            reserva = lote;
+            volcando = false;
+            if (error == null) {
+                lsnEscrito = Math.max(lsnEscrito, hasta);
+                lsnDurable = hasta;
+            } else {
+                fallo = error;
+            }
+            notifyAll();
+
+            // WAL demasiado grande - Checkpoint en segundo plano
+            if (error == null && !copiando && wal.size() >= maxWal) {
+                iniciarCheckpoint(true);
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    // Checkpoint síncrono - Espera al que esté en curso
+    public void checkpoint() throws IOException {
+        int filasCorte;
+        long lsnCorte;
+        synchronized (this) {
+            // Checkpoint en curso
+            while (copiando) {
+                esperar();
+            }
+            comprobarFallo();
+
+            // Sin cambios desde el último checkpoint
+            if (lsn == lsnCheckpoint && Files.exists(directorio.resolve(FICHERO_ALMACEN))) {
+                return;
+            }
+
+            // Corte - Copia fuera del cerrojo
+            iniciarCheckpoint(false);
+            filasCorte = store.getFilas();
+            lsnCorte = lsn;
+        }
+        completarCheckpoint(filasCorte, lsnCorte);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            checkpoint();
+        } finally {
+            try {
+                synchronized (this) {
+                    wal.close();
+                }
+            } finally {
+                store.close();
+            }
+        }
+    }
+
+    // Corte del checkpoint (Cerrojo tomado) - Solo rota el WAL
+    // El WAL actual pasa a anterior y los registros nuevos van a un WAL vacío
+    private void iniciarCheckpoint(boolean segundoPlano) throws IOException {
+        // Volcado en curso sobre el WAL actual
+        while (volcando) {
+            esperar();
+        }
+        comprobarFallo();
+
+        // WAL actual completo y durable - El nuevo solo puede seguirle
+        escribir(activo);
+        activo.clear();
+        wal.force(false);
+        lsnEscrito = lsn;
+        lsnDurable = lsn;
+
+        // WAL actual > WAL anterior + WAL nuevo vacío
+        try {
+            wal.close();
+            Files.move(directorio.resolve(FICHERO_WAL), directorio.resolve(FICHERO_WAL_ANTERIOR),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            wal = abrirWal();
+            reiniciarWal();
+            sincronizarDirectorio();
+        } catch (IOException e) {
+            fallo = e;
+            throw e;
+        }
+        copiando = true;
+
+        // Copia en un hilo propio - El escritor que llena el WAL no espera
+        if (segundoPlano) {
+            final int filasCorte = store.getFilas();
+            final long lsnCorte = lsn;
+            Thread hilo = new Thread(() -> {
+                try {
+                    completarCheckpoint(filasCorte, lsnCorte);
+                } catch (IOException e) {
+                    // Registrado en fallo - Se notifica en la siguiente operación
+                }
+            }, "Checkpoint " + directorio.getFileName());
+            hilo.setDaemon(true);
+            hilo.start();
+        }
+    }
+
+    // Copia del corte > Fichero de checkpoint + WAL anterior borrado (Sin cerrojo)
+    // Copia difusa: las filas pueden reflejar registros posteriores al corte, que
+    // son durables antes del renombrado y se reproducen de nuevo sobre ella
+    private void completarCheckpoint(int filasCorte, long lsnCorte) throws IOException {
+        IOException error = null;
+        try {
+            volcarAlmacen(filasCorte);
+            Files.delete(directorio.resolve(FICHERO_WAL_ANTERIOR));
+            sincronizarDirectorio();
+        } catch (IOException e) {
+            error = e;
+        }
+
+        // Fin de la copia
+        synchronized (this) {
+            copiando = false;
+            if (error == null) {
+                lsnCheckpoint = lsnCorte;
+            } else if (fallo == null) {
+                fallo = error;
+            }
+            notifyAll();
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    // Filas [0, filas) > Sombra completa y durable > Fichero de checkpoint
+    private void volcarAlmacen(int filas) throws IOException {
+        // Almacén > Sombra
+        Path sombra = directorio.resolve(FICHERO_SOMBRA);
+        Files.deleteIfExists(sombra);
+        try (TicketStore copia = new TicketStore(sombra)) {
+            store.recorrer(0, filas, copia::insertar);
+        }
+
+        // Registros que la copia haya podido ver > Disco
+        confirmar();
+
+        // Sombra > Checkpoint - El anterior sigue intacto hasta el renombrado
+        Files.move(sombra, directorio.resolve(FICHERO_ALMACEN),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        sincronizarDirectorio();
+    }
+
+    // Registro > Buffer activo (Cerrojo tomado)
+    private void registrar(byte tipo, int fila, long ticket) throws IOException {
+        comprobarFallo();
+
+        // Buffer lleno - Volcado sin fsync, tras el lote en curso
+        if (activo.remaining() < TAM_REGISTRO) {
+            while (volcando) {
+                esperar();
+            }
+            escribir(activo);
+            activo.clear();
+            lsnEscrito = lsn;
+
+            // WAL demasiado grande - Checkpoint en segundo plano
+            if (!copiando && wal.position() >= maxWal) {
+                iniciarCheckpoint(true);
+            }
+        }
+
+        // Datos
+        int ini = activo.position();
+        activo.put(tipo);
+        activo.putInt(fila);
+        activo.putLong(ticket);
+
+        // CRC32 de los datos
+        ByteBuffer datos = activo.duplicate();
+        datos.position(ini).limit(ini + TAM_DATOS);
+        crc.reset();
+        crc.update(datos);
+        activo.putInt((int) crc.getValue());
+        lsn++;
+    }
+
+    // Reproduce un WAL sobre el almacén - Devuelve los registros aplicados
+    private long reproducir(FileChannel canal) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocateDirect(TAM_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+        long pos = TAM_CABECERA_WAL;
+        long num = 0;
+        boolean fin = false;
+        while (!fin) {
+            // Tramo de registros
+            buf.clear();
+            int leidos = canal.read(buf, pos);
+            if (leidos <= 0) {
+                break;
+            }
+            buf.flip();
+
+            // Registros completos y válidos
+            while (buf.remaining() >= TAM_REGISTRO) {
+                int ini = buf.position();
+                byte tipo = buf.get();
+                int fila = buf.getInt();
+                long ticket = buf.getLong();
+                int suma = buf.getInt();
+
+                // CRC - Escritura incompleta al final
+                ByteBuffer datos = buf.duplicate();
+                datos.position(ini).limit(ini + TAM_DATOS);
+                crc.reset();
+                crc.update(datos);
+                if ((int) crc.getValue() != suma || !aplicar(tipo, fila, ticket)) {
+                    fin = true;
+                    break;
+                }
+                pos += TAM_REGISTRO;
+                num++;
+            }
+
+            // Registro partido al final del fichero
+            if (buf.remaining() > 0 && pos + buf.remaining() >= canal.size()) {
+                fin = true;
+            }
+        }
+
+        // Cola dañada descartada - Se continúa tras el último registro válido
+        canal.truncate(pos);
+        canal.position(pos);
+        return num;
+    }
+
+    // Registro > Almacén (Idempotente) - false si no es aplicable
+    private boolean aplicar(byte tipo, int fila, long ticket) {
+        if (!TicketCodec.validarTicket(ticket) || fila < 0 || fila > store.getFilas()) {
+            return false;
+        }
+        if (tipo == TIPO_ALTA && fila == store.getFilas()) {
+            store.insertar(ticket);
+        } else if ((tipo == TIPO_ALTA || tipo == TIPO_CAMBIO) && fila < store.getFilas()) {
+            store.actualizar(fila, ticket);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    // Entradas del directorio > Disco (Sin efecto donde no se admite)
+    private void sincronizarDirectorio() {
+        try (FileChannel dir = FileChannel.open(directorio, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Sistema sin sincronización de directorios
+        }
+    }
+
+    // WAL > Solo cabecera
+    private void reiniciarWal() throws IOException {
+        ByteBuffer cab = ByteBuffer.allocate(TAM_CABECERA_WAL).order(ByteOrder.LITTLE_ENDIAN);
+        cab.putInt(MAGIC_WAL);
+        cab.putInt(VERSION_WAL);
+        cab.putLong(0);
+        wal.truncate(0);
+        wal.position(0);
+        escribir(cab);
+        wal.force(true);
+    }
+
+    // WAL actual - Abierto o creado
+    private FileChannel abrirWal() throws IOException {
+        return FileChannel.open(directorio.resolve(FICHERO_WAL),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    // Cabecera de un WAL existente
+    private static void validarCabeceraWal(FileChannel canal) throws IOException {
+        ByteBuffer cab = ByteBuffer.allocate(TAM_CABECERA_WAL).order(ByteOrder.LITTLE_ENDIAN);
+        while (cab.hasRemaining() && canal.read(cab, cab.position()) > 0) {
+            // Lectura completa
+        }
+        if (cab.getInt(0) != MAGIC_WAL || cab.getInt(4) != VERSION_WAL) {
+            throw new IOException("WAL de tickets no reconocido");
+        }
+    }
+
+    // Buffer > Final del WAL
+    private void escribir(ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            wal.write(buf);
+        }
+    }
+
+    // Espera de un volcado en curso (Cerrojo tomado)
+    private void esperar() throws InterruptedIOException {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Confirmación interrumpida");
+        }
+    }
+
+    // WAL inutilizable tras un error de escritura
+    private void comprobarFallo() throws IOException {
+        if (fallo != null) {
+            throw new IOException("WAL no disponible", fallo);
+        }
+    }
+
+    // Rangos del ticket
+    private static void validarTicket(long ticket) {
+        if (!TicketCodec.validarTicket(ticket)) {
+            throw new IllegalArgumentException("Ticket no válido: " + ticket);
+        }
+    }
+}
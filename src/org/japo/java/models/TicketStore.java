@@ -0,0 +1,444 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.models;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import org.japo.java.libraries.TicketCodec;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class TicketStore implements Closeable {
+
+    // Filas por segmento
+    public static final int FILAS_SEGMENTO = 1 << 20;
+
+    // Anchura de las columnas (bytes) - Indexadas por Model.POS_*
+    public static final int[] ANCHO_COLUMNA = {4, 1, 1, 4, 1};
+
+    // Cabecera del fichero mapeado
+    public static final int MAGIC = 0x4C4E5453;     // LNTS
+    public static final int TAM_CABECERA = 16;
+
+    // Desplazamiento de las columnas dentro del segmento
+    private static final int[] DESP_COLUMNA = new int[Model.NUM_ITEMS];
+
+    // Bytes por segmento
+    public static final int TAM_SEGMENTO;
+
+    static {
+        int desp = 0;
+        for (int i = 0; i < Model.NUM_ITEMS; i++) {
+            DESP_COLUMNA[i] = desp;
+            desp += ANCHO_COLUMNA[i] * FILAS_SEGMENTO;
+        }
+        TAM_SEGMENTO = desp;
+    }
+
+    // Segmentos - Se reemplaza el array al crecer
+    private volatile ByteBuffer[] segmentos;
+
+    // Filas publicadas - Escritor único
+    private volatile int filas;
+
+    // Filas por página del mapa de cambios
+    public static final int FILAS_PAGINA = 1 << 16;
+
+    // Filas base sobrescritas desde la última confirmación - Páginas de bits
+    // creadas al primer cambio (Escritor único) - Las altas no se marcan
+    private long[][] paginas = new long[0][];
+    private int numSobrescritas;
+    private int filasBase;
+
+    // Fichero mapeado (null en memoria directa)
+    private final FileChannel canal;
+    private final MappedByteBuffer cabecera;
+
+    // Constructor - Memoria directa
+    public TicketStore() {
+        this.segmentos = new ByteBuffer[0];
+        this.canal = null;
+        this.cabecera = null;
+    }
+
+    // Constructor - Fichero mapeado
+    public TicketStore(Path fichero) throws IOException {
+        // Abrir Canal
+        this.canal = FileChannel.open(fichero,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        try {
+            // Mapear Cabecera
+            this.cabecera = canal.map(FileChannel.MapMode.READ_WRITE, 0, TAM_CABECERA);
+            cabecera.order(ByteOrder.LITTLE_ENDIAN);
+
+            // Fichero Nuevo / Existente
+            int magic = cabecera.getInt(0);
+            if (magic == 0) {
+                cabecera.putInt(0, MAGIC);
+                cabecera.putInt(4, 0);
+            } else if (magic != MAGIC) {
+                throw new IOException("Fichero de tickets no reconocido");
+            }
+
+            // Mapear Segmentos Existentes
+            int filasFichero = cabecera.getInt(4);
+            int numSegmentos = (filasFichero + FILAS_SEGMENTO - 1) / FILAS_SEGMENTO;
+            ByteBuffer[] lista = new ByteBuffer[numSegmentos];
+            for (int i = 0; i < numSegmentos; i++) {
+                lista[i] = mapearSegmento(i);
+            }
+            this.segmentos = lista;
+            this.filas = filasFichero;
+            this.filasBase = filasFichero;
+            this.paginas = new long[(filasFichero + FILAS_PAGINA - 1) / FILAS_PAGINA][];
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    // Columna > Desplazamiento dentro del segmento (bytes)
+    public static int obtenerDesplazamiento(int pos) {
+        return DESP_COLUMNA[pos];
+    }
+
+    // Número de tickets almacenados
+    public int getFilas() {
+        return filas;
+    }
+
+    // Ticket > Fila nueva
+    public int insertar(long ticket) {
+        return insertar(
+                TicketCodec.numero(ticket),
+                TicketCodec.serie(ticket),
+                TicketCodec.fraccion(ticket),
+                TicketCodec.fecha(ticket),
+                TicketCodec.precio(ticket));
+    }
+
+    // Campos > Fila nueva
+    public int insertar(int numero, int serie, int fraccion, int fecha, int precio) {
+        // Validar Campos - Las columnas de 1 byte no detectan desbordamientos
+        TicketCodec.comprobarCampos(numero, serie, fraccion, fecha, precio);
+
+        // Fila a escribir
+        int fila = filas;
+
+        // Segmento de la fila
+        int seg = fila / FILAS_SEGMENTO;
+        if (seg == segmentos.length) {
+            crecer();
+        }
+
+        // Escribir Columnas
+        escribir(segmentos[seg], fila % FILAS_SEGMENTO, numero, serie, fraccion, fecha, precio);
+
+        // Publicar Fila
+        filas = fila + 1;
+
+        // Devolver Fila
+        return fila;
+    }
+
+    // Sobrescribe una fila existente
+    public void actualizar(int fila, long ticket) {
+        comprobarFila(fila);
+        TicketCodec.comprobarTicket(ticket);
+        escribir(segmentos[fila / FILAS_SEGMENTO], fila % FILAS_SEGMENTO,
+                TicketCodec.numero(ticket),
+                TicketCodec.serie(ticket),
+                TicketCodec.fraccion(ticket),
+                TicketCodec.fecha(ticket),
+                TicketCodec.precio(ticket));
+        marcar(fila);
+    }
+
+    // Descarta las altas desde la fila indicada - Deshace una importación fallida
+    public void truncar(int filasFin) {
+        if (filasFin < filasBase || filasFin > filas) {
+            throw new IllegalArgumentException("Filas: " + filasFin);
+        }
+        filas = filasFin;
+    }
+
+    // Fila > Ticket
+    public long obtener(int fila) {
+        // Comprobar Fila
+        comprobarFila(fila);
+
+        // Segmento de la fila
+        ByteBuffer seg = segmentos[fila / FILAS_SEGMENTO];
+        int i = fila % FILAS_SEGMENTO;
+
+        // Devolver Ticket
+        return TicketCodec.empaquetarSinComprobar(
+                leer(seg, Model.POS_NUMERO, i),
+                leer(seg, Model.POS_SERIE, i),
+                leer(seg, Model.POS_FRACCION, i),
+                leer(seg, Model.POS_FECHA, i),
+                leer(seg, Model.POS_PRECIO, i));
+    }
+
+    // Fila + Columna > Valor
+    public int obtenerCampo(int fila, int pos) {
+        comprobarFila(fila);
+        return leer(segmentos[fila / FILAS_SEGMENTO], pos, fila % FILAS_SEGMENTO);
+    }
+
+    // Recorrido de una columna completa
+    public void recorrerColumna(int pos, IntConsumer consumidor) {
+        recorrerColumna(pos, 0, filas, consumidor);
+    }
+
+    // Recorrido de una columna - [filaIni, filaFin)
+    public void recorrerColumna(int pos, int filaIni, int filaFin, IntConsumer consumidor) {
+        // Instantánea de los segmentos
+        ByteBuffer[] lista = segmentos;
+
+        // Recorrido por segmentos
+        int fila = filaIni;
+        while (fila < filaFin) {
+            ByteBuffer seg = lista[fila / FILAS_SEGMENTO];
+            int ini = fila % FILAS_SEGMENTO;
+            int fin = Math.min(FILAS_SEGMENTO, ini + filaFin - fila);
+            for (int i = ini; i < fin; i++) {
+                consumidor.accept(leer(seg, pos, i));
+            }
+            fila += fin - ini;
+        }
+    }
+
+    // Recorrido de todos los tickets publicados
+    public void recorrer(LongConsumer consumidor) {
+        recorrer(0, filas, consumidor);
+    }
+
+    // Recorrido de tickets - [filaIni, filaFin)
+    public void recorrer(int filaIni, int filaFin, LongConsumer consumidor) {
+        for (int fila = filaIni; fila < filaFin; fila++) {
+            consumidor.accept(obtener(fila));
+        }
+    }
+
+    // Iterador sobre una instantánea de las filas publicadas
+    public PrimitiveIterator.OfLong iterador() {
+        return iterador(0, filas);
+    }
+
+    // Iterador sobre una instantánea - [filaIni, filaFin)
+    public PrimitiveIterator.OfLong iterador(final int filaIni, final int filaFin) {
+        return new PrimitiveIterator.OfLong() {
+            private int fila = filaIni;
+
+            @Override
+            public boolean hasNext() {
+                return fila < filaFin;
+            }
+
+            @Override
+            public long nextLong() {
+                if (fila >= filaFin) {
+                    throw new NoSuchElementException();
+                }
+                return obtener(fila++);
+            }
+        };
+    }
+
+    // Filas en la última confirmación - Las posteriores son altas
+    public int getFilasBase() {
+        return filasBase;
+    }
+
+    // Filas insertadas o sobrescritas desde la última confirmación
+    public int getNumModificadas() {
+        return numSobrescritas + filas - filasBase;
+    }
+
+    // Fila insertada o sobrescrita desde la última confirmación
+    public boolean isModificada(int fila) {
+        if (fila >= filasBase) {
+            return fila < filas;
+        }
+        long[] bits = fila < 0 ? null : paginas[fila / FILAS_PAGINA];
+        return bits != null && (bits[fila % FILAS_PAGINA >>> 6] & 1L << fila) != 0;
+    }
+
+    // Estado actual como confirmado (Tras importar / exportar)
+    public void limpiarModificadas() {
+        filasBase = filas;
+        paginas = new long[(filasBase + FILAS_PAGINA - 1) / FILAS_PAGINA][];
+        numSobrescritas = 0;
+    }
+
+    // Filas modificadas en orden ascendente - Sobrescritas y después las altas
+    public PrimitiveIterator.OfInt iteradorModificadas() {
+        final long[][] mapa = paginas.clone();
+        final int base = filasBase;
+        final int fin = filas;
+        return new PrimitiveIterator.OfInt() {
+            private int fila = siguiente(0);
+
+            @Override
+            public boolean hasNext() {
+                return fila < fin;
+            }
+
+            @Override
+            public int nextInt() {
+                if (fila >= fin) {
+                    throw new NoSuchElementException();
+                }
+                int actual = fila;
+                fila = siguiente(actual + 1);
+                return actual;
+            }
+
+            // Siguiente fila sobrescrita desde ini / Altas a partir de la base
+            private int siguiente(int ini) {
+                if (ini >= base) {
+                    return ini;
+                }
+                for (int pag = ini / FILAS_PAGINA; pag < mapa.length; pag++) {
+                    long[] bits = mapa[pag];
+                    if (bits == null) {
+                        continue;
+                    }
+                    int desde = pag == ini / FILAS_PAGINA ? ini % FILAS_PAGINA : 0;
+                    int palabra = desde >>> 6;
+                    long resto = bits[palabra] & -1L << desde;
+                    while (true) {
+                        if (resto != 0) {
+                            return pag * FILAS_PAGINA + palabra * 64 + Long.numberOfTrailingZeros(resto);
+                        }
+                        if (++palabra == bits.length) {
+                            break;
+                        }
+                        resto = bits[palabra];
+                    }
+                }
+                return base;
+            }
+        };
+    }
+
+    // Vuelca la cabecera y los segmentos mapeados
+    public void sincronizar() {
+        if (canal != null) {
+            cabecera.putInt(4, filas);
+            for (ByteBuffer seg : segmentos) {
+                ((MappedByteBuffer) seg).force();
+            }
+            cabecera.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (canal != null) {
+            sincronizar();
+            canal.close();
+        }
+    }
+
+    // Añade un segmento nuevo
+    private void crecer() {
+        // Segmento nuevo
+        ByteBuffer seg;
+        try {
+            seg = canal == null
+                    ? ByteBuffer.allocateDirect(TAM_SEGMENTO).order(ByteOrder.LITTLE_ENDIAN)
+                    : mapearSegmento(segmentos.length);
+        } catch (IOException e) {
+            throw new IllegalStateException("ERROR: Ampliación del almacén", e);
+        }
+
+        // Copia del array de segmentos
+        ByteBuffer[] lista = new ByteBuffer[segmentos.length + 1];
+        System.arraycopy(segmentos, 0, lista, 0, segmentos.length);
+        lista[segmentos.length] = seg;
+
+        // Publicar Segmentos
+        segmentos = lista;
+    }
+
+    // Segmento > Región mapeada del fichero
+    private ByteBuffer mapearSegmento(int seg) throws IOException {
+        long desp = TAM_CABECERA + (long) seg * TAM_SEGMENTO;
+        return canal.map(FileChannel.MapMode.READ_WRITE, desp, TAM_SEGMENTO)
+                .order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // Fila base sobrescrita > Mapa de cambios
+    private void marcar(int fila) {
+        if (fila >= filasBase) {
+            return;
+        }
+        long[] bits = paginas[fila / FILAS_PAGINA];
+        if (bits == null) {
+            bits = paginas[fila / FILAS_PAGINA] = new long[FILAS_PAGINA / 64];
+        }
+        int palabra = fila % FILAS_PAGINA >>> 6;
+        long bit = 1L << fila;
+        if ((bits[palabra] & bit) == 0) {
+            bits[palabra] |= bit;
+            numSobrescritas++;
+        }
+    }
+
+    // Comprobación de fila publicada
+    private void comprobarFila(int fila) {
+        if (fila < 0 || fila >= filas) {
+            throw new IndexOutOfBoundsException("Fila " + fila);
+        }
+    }
+
+    // Escritura de las columnas de una fila
+    private static void escribir(ByteBuffer seg, int i,
+            int numero, int serie, int fraccion, int fecha, int precio) {
+        seg.putInt(DESP_COLUMNA[Model.POS_NUMERO] + i * 4, numero);
+        seg.put(DESP_COLUMNA[Model.POS_SERIE] + i, (byte) serie);
+        seg.put(DESP_COLUMNA[Model.POS_FRACCION] + i, (byte) fraccion);
+        seg.putInt(DESP_COLUMNA[Model.POS_FECHA] + i * 4, fecha);
+        seg.put(DESP_COLUMNA[Model.POS_PRECIO] + i, (byte) precio);
+    }
+
+    // Lectura de una columna de una fila
+    private static int leer(ByteBuffer seg, int pos, int i) {
+        // Columnas de 4 bytes con signo / 1 byte sin signo
+        if (ANCHO_COLUMNA[pos] == 4) {
+            return seg.getInt(DESP_COLUMNA[pos] + i * 4);
+        } else {
+            return seg.get(DESP_COLUMNA[pos] + i) & 0xFF;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.controllers;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import org.japo.java.interfaces.IDataAccessStreamController;
+import org.japo.java.interfaces.IProgreso;
+import org.japo.java.interfaces.IVerificable;
+import org.japo.java.libraries.SalidaComprimida;
+import org.japo.java.libraries.TicketCodec;
+import org.japo.java.models.InformeVerificacion;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class PruebaVerificacionBloques {
+
+    // Tickets - Tres bloques completos + Final parcial
+    public static final int REGISTROS_BLOQUE = DataAccessControllerTBIN.REGISTROS_BLOQUE;
+    public static final int NUM_TICKETS = 3 * REGISTROS_BLOQUE + 1000;
+
+    // Tickets añadidos tras la lectura
+    public static final int NUM_ANYADIDOS = REGISTROS_BLOQUE + 500;
+
+    // Bloque / Miembro alterado
+    public static final int BLOQUE_CORRUPTO = 2;
+    public static final int MIEMBRO_CORRUPTO = 2;
+
+    // Registro alterado dentro del bloque
+    public static final int REGISTRO_CORRUPTO = 7;
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("verificacion");
+        try {
+            probarTBIN(dir.resolve("tickets.tbin"));
+            probarTBINAnyadir(dir.resolve("anyadidos.tbin"));
+            probarTBINv1(dir.resolve("v1.tbin"));
+            probarGZ(dir.resolve("tickets.tbin.gz"));
+        } finally {
+            try (Stream<Path> ficheros = Files.list(dir)) {
+                for (Path fichero : (Iterable<Path>) ficheros::iterator) {
+                    Files.delete(fichero);
+                }
+            }
+            Files.delete(dir);
+        }
+
+        System.out.println("Verificación de bloques - OK");
+    }
+
+    // TBIN versión 2 - Byte alterado en un bloque > Índice y desplazamiento del bloque
+    private static void probarTBIN(Path fichero) throws Exception {
+        DataAccessControllerTBIN dac = new DataAccessControllerTBIN();
+        dac.exportarTickets(generar(0, NUM_TICKETS), fichero.toString());
+
+        // Fichero íntegro
+        InformeVerificacion informe = verificar(dac, fichero);
+        comprobar(informe.isValido(), "TBIN íntegro con corruptos: " + informe.getCorruptos());
+        comprobar(informe.getBloques() == 4, "Bloques TBIN: " + informe.getBloques());
+        comprobarTickets(dac, fichero, NUM_TICKETS);
+
+        // Byte de un registro del bloque alterado
+        long desplazamiento = DataAccessControllerTBIN.calcularDesplazamiento(
+                (long) BLOQUE_CORRUPTO * REGISTROS_BLOQUE, REGISTROS_BLOQUE);
+        alterar(fichero, desplazamiento + REGISTRO_CORRUPTO * DataAccessControllerTBIN.TAM_REGISTRO + 3);
+        comprobarCorrupto(verificar(dac, fichero), BLOQUE_CORRUPTO, desplazamiento);
+
+        // Importación - Mismo bloque y desplazamiento en el error
+        String esperado = String.format("Bloque %d en byte %d", BLOQUE_CORRUPTO, desplazamiento);
+        comprobarError(() -> dac.importarTickets(fichero.toString(), t -> {
+        }), esperado);
+        comprobarError(() -> {
+            try (InputStream entrada = new FileInputStream(fichero.toFile())) {
+                dac.importarTickets(entrada, t -> {
+                });
+            }
+        }, esperado);
+    }
+
+    // TBIN versión 2 - Añadido sobre el bloque final parcial con su suma reescrita
+    private static void probarTBINAnyadir(Path fichero) throws Exception {
+        DataAccessControllerTBIN dac = new DataAccessControllerTBIN();
+        dac.exportarTickets(generar(0, NUM_TICKETS), fichero.toString());
+        dac.anyadirTickets(generar(NUM_TICKETS, NUM_ANYADIDOS), fichero.toString());
+
+        InformeVerificacion informe = verificar(dac, fichero);
+        comprobar(informe.isValido(), "TBIN añadido con corruptos: " + informe.getCorruptos());
+        comprobarTickets(dac, fichero, NUM_TICKETS + NUM_ANYADIDOS);
+    }
+
+    // TBIN versión 1 - Lectura, añadido sin sumas y registro fuera de rango
+    private static void probarTBINv1(Path fichero) throws Exception {
+        DataAccessControllerTBIN dac = new DataAccessControllerTBIN();
+        escribirV1(fichero, NUM_TICKETS);
+
+        // Lectura por canal y por flujo
+        comprobarTickets(dac, fichero, NUM_TICKETS);
+
+        // Añadido - Sigue en versión 1
+        dac.anyadirTickets(generar(NUM_TICKETS, NUM_ANYADIDOS), fichero.toString());
+        try (FileChannel canal = FileChannel.open(fichero, StandardOpenOption.READ)) {
+            comprobar(DataAccessControllerTBIN.leerCabecera(canal) == 0, "Añadido fuera de la versión 1");
+        }
+        comprobarTickets(dac, fichero, NUM_TICKETS + NUM_ANYADIDOS);
+        InformeVerificacion informe = verificar(dac, fichero);
+        comprobar(informe.isValido(), "TBIN v1 con corruptos: " + informe.getCorruptos());
+
+        // Registro fuera de rango > Tramo de REGISTROS_BLOQUE que lo contiene
+        long registro = (long) BLOQUE_CORRUPTO * REGISTROS_BLOQUE + REGISTRO_CORRUPTO;
+        long desplazamiento = DataAccessControllerTBIN.calcularDesplazamiento(registro, 0);
+        try (FileChannel canal = FileChannel.open(fichero, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ByteBuffer.allocate(DataAccessControllerTBIN.TAM_REGISTRO).order(ByteOrder.LITTLE_ENDIAN);
+            buf.putLong(0, -1L);
+            canal.write(buf, desplazamiento);
+        }
+        comprobarCorrupto(verificar(dac, fichero), BLOQUE_CORRUPTO,
+                DataAccessControllerTBIN.calcularDesplazamiento((long) BLOQUE_CORRUPTO * REGISTROS_BLOQUE, 0));
+        comprobarError(() -> dac.importarTickets(fichero.toString(), t -> {
+        }), "Registro " + registro);
+    }
+
+    // Gzip con subcampo TK - Byte alterado en un miembro > Índice y desplazamiento del miembro
+    private static void probarGZ(Path fichero) throws Exception {
+        DataAccessControllerGZ dac = new DataAccessControllerGZ(new DataAccessControllerTBIN());
+        dac.exportarTickets(generar(0, NUM_TICKETS), fichero.toString());
+
+        // Fichero íntegro
+        long[] miembros = localizarMiembros(fichero);
+        comprobar(miembros.length > MIEMBRO_CORRUPTO + 1, "Miembros gzip: " + miembros.length);
+        InformeVerificacion informe = verificar(dac, fichero);
+        comprobar(informe.isValido(), "Gzip íntegro con corruptos: " + informe.getCorruptos());
+        comprobar(informe.getBloques() == miembros.length, "Miembros verificados: " + informe.getBloques());
+        comprobarTickets(dac, fichero, NUM_TICKETS);
+
+        // Byte de los datos comprimidos del miembro alterado
+        long desplazamiento = miembros[MIEMBRO_CORRUPTO];
+        alterar(fichero, desplazamiento + SalidaComprimida.TAM_CABECERA + 5);
+        comprobarCorrupto(verificar(dac, fichero), MIEMBRO_CORRUPTO, desplazamiento);
+        comprobarError(() -> dac.importarTickets(fichero.toString(), t -> {
+        }), null);
+    }
+
+    // Fichero TBIN versión 1 - Cabecera + Registros sin bloques
+    private static void escribirV1(Path fichero, int num) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(DataAccessControllerTBIN.TAM_CABECERA
+                + num * DataAccessControllerTBIN.TAM_REGISTRO).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(DataAccessControllerTBIN.MAGIC);
+        buf.putInt(1);
+        buf.putInt(DataAccessControllerTBIN.TAM_REGISTRO);
+        buf.putInt(0);
+        generar(0, num).forEachRemaining((long ticket) -> buf.putLong(ticket));
+        Files.write(fichero, buf.array());
+    }
+
+    // Miembros gzip > Desplazamientos - Tamaño declarado en el subcampo TK
+    private static long[] localizarMiembros(Path fichero) throws IOException {
+        byte[] datos = Files.readAllBytes(fichero);
+        ByteBuffer buf = ByteBuffer.wrap(datos).order(ByteOrder.LITTLE_ENDIAN);
+        LongStream.Builder miembros = LongStream.builder();
+        for (int pos = 0; pos < datos.length; pos += buf.getInt(pos + SalidaComprimida.POS_TAM_MIEMBRO)) {
+            comprobar(buf.get(pos + 12) == SalidaComprimida.SUBCAMPO_SI1
+                    && buf.get(pos + 13) == SalidaComprimida.SUBCAMPO_SI2, "Miembro sin subcampo TK en " + pos);
+            miembros.add(pos);
+        }
+        return miembros.build().toArray();
+    }
+
+    // Fichero > Tickets por canal y por flujo comparados con los generados
+    private static void comprobarTickets(IDataAccessStreamController dac, Path fichero, int num) throws Exception {
+        long[] esperados = LongStream.range(0, num).map(i -> generar((int) i)).toArray();
+        long[] leidos = new long[num];
+        int[] pos = new int[1];
+        long total = dac.importarTickets(fichero.toString(), t -> leidos[pos[0]++] = t);
+        comprobar(total == num && Arrays.equals(esperados, leidos), "Tickets leídos por canal: " + total);
+        pos[0] = 0;
+        try (InputStream entrada = new FileInputStream(fichero.toFile())) {
+            total = dac.importarTickets(entrada, t -> leidos[pos[0]++] = t);
+        }
+        comprobar(total == num && Arrays.equals(esperados, leidos), "Tickets leídos por flujo: " + total);
+    }
+
+    // Informe > Un solo corrupto en bloque y desplazamiento
+    private static void comprobarCorrupto(InformeVerificacion informe, long bloque, long desplazamiento) {
+        SortedMap<Long, Long> esperado = new TreeMap<>();
+        esperado.put(bloque, desplazamiento);
+        comprobar(esperado.equals(informe.getCorruptos()),
+                "Corruptos: " + informe.getCorruptos() + " - Esperado: " + esperado);
+        comprobar(informe.obtenerPrimerError().endsWith(
+                String.format("Bloque %d en byte %d", bloque, desplazamiento)),
+                "Error: " + informe.obtenerPrimerError());
+    }
+
+    // Operación > Excepción con el texto esperado (null = Cualquier texto)
+    private static void comprobarError(Operacion operacion, String texto) {
+        try {
+            operacion.ejecutar();
+        } catch (Exception e) {
+            comprobar(texto == null || String.valueOf(e.getMessage()).contains(texto),
+                    "Error inesperado: " + e.getMessage() + " - Esperado: " + texto);
+            return;
+        }
+        throw new AssertionError("Datos corruptos sin error: " + texto);
+    }
+
+    private static InformeVerificacion verificar(IVerificable dac, Path fichero) throws Exception {
+        return dac.verificar(fichero.toString(), ForkJoinPool.commonPool(), IProgreso.NINGUNO);
+    }
+
+    // Byte en pos invertido
+    private static void alterar(Path fichero, long pos) throws IOException {
+        try (FileChannel canal = FileChannel.open(fichero, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ByteBuffer.allocate(1);
+            canal.read(buf, pos);
+            buf.put(0, (byte) ~buf.get(0));
+            buf.rewind();
+            canal.write(buf, pos);
+        }
+    }
+
+    // Tickets [ini, ini + num) deterministas
+    private static PrimitiveIterator.OfLong generar(int ini, int num) {
+        return LongStream.range(ini, ini + num).map(i -> generar((int) i)).iterator();
+    }
+
+    // Posición > Ticket determinista
+    private static long generar(int i) {
+        return TicketCodec.empaquetar(i % 100_000, i % 161, i % 10, 17_000 + i % 50, 20);
+    }
+
+    private static void comprobar(boolean condicion, String mensaje) {
+        if (!condicion) {
+            throw new AssertionError(mensaje);
+        }
+    }
+
+    // Operación que debe fallar
+    private interface Operacion {
+
+        void ejecutar() throws Exception;
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2017 José A. Pacheco Ondoño - joanpaon@gmail.com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.japo.java.models;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import org.japo.java.libraries.TicketCodec;
+
+/**
+ *
+ * @author José A. Pacheco Ondoño - joanpaon@gmail.com
+ */
+public class PruebaRecuperacionLedger {
+
+    // Tickets del checkpoint
+    public static final int NUM_TICKETS = 100_000;
+
+    // Filas tocadas tras el checkpoint
+    public static final int FILA_SIN_CONFIRMAR = 12_345;
+    public static final int FILA_CONFIRMADA = 54_321;
+
+    // Checkpoints en segundo plano - Altas + cambios con un WAL pequeño
+    public static final int NUM_ALTAS_DIFUSO = 400_000;
+    public static final long MAX_WAL_DIFUSO = 2L << 20;
+
+    // Escenarios del proceso hijo
+    private static final String ESC_SIN_CONFIRMAR = "sin-confirmar";
+    private static final String ESC_CONFIRMADO = "confirmado";
+    private static final String ESC_DIFUSO = "difuso";
+
+    public static void main(String[] args) throws Exception {
+        // Proceso hijo - Escribe y se detiene sin cerrar
+        if (args.length == 2) {
+            ejecutarHijo(args[0], Paths.get(args[1]));
+            return;
+        }
+
+        // Cambio sin confirmar sobre una fila del checkpoint
+        Path dir = Files.createTempDirectory("ledger");
+        byte[] checkpoint = prepararCheckpoint(dir);
+        lanzarHijo(ESC_SIN_CONFIRMAR, dir);
+        comprobar(Arrays.equals(checkpoint, Files.readAllBytes(dir.resolve(TicketLedger.FICHERO_ALMACEN))),
+                "El checkpoint ha cambiado sin un checkpoint()");
+        try (TicketLedger ledger = new TicketLedger(dir)) {
+            TicketStore store = ledger.getStore();
+            comprobar(store.getFilas() == NUM_TICKETS, "Filas recuperadas: " + store.getFilas());
+            for (int fila = 0; fila < NUM_TICKETS; fila++) {
+                comprobar(store.obtener(fila) == generar(fila), "Fila alterada: " + fila);
+            }
+        }
+        borrar(dir);
+
+        // Cambio confirmado - Debe sobrevivir por el WAL
+        dir = Files.createTempDirectory("ledger");
+        checkpoint = prepararCheckpoint(dir);
+        lanzarHijo(ESC_CONFIRMADO, dir);
+        comprobar(Arrays.equals(checkpoint, Files.readAllBytes(dir.resolve(TicketLedger.FICHERO_ALMACEN))),
+                "El checkpoint ha cambiado sin un checkpoint()");
+        try (TicketLedger ledger = new TicketLedger(dir)) {
+            TicketStore store = ledger.getStore();
+            comprobar(ledger.getRecuperados() == 2, "Registros recuperados: " + ledger.getRecuperados());
+            comprobar(store.getFilas() == NUM_TICKETS + 1, "Filas recuperadas: " + store.getFilas());
+            comprobar(store.obtener(FILA_CONFIRMADA) == cambiar(FILA_CONFIRMADA), "Cambio confirmado perdido");
+            comprobar(store.obtener(NUM_TICKETS) == generar(NUM_TICKETS), "Alta confirmada perdida");
+        }
+
+        // Reapertura tras el cierre - Checkpoint con los cambios y WAL vacío
+        try (TicketLedger ledger = new TicketLedger(dir)) {
+            comprobar(ledger.getRecuperados() == 0, "WAL no vaciado en el cierre");
+            comprobar(ledger.getStore().obtener(FILA_CONFIRMADA) == cambiar(FILA_CONFIRMADA),
+                    "Cambio ausente del checkpoint");
+        }
+        borrar(dir);
+
+        // Parada con checkpoints difusos en curso - Todo lo confirmado sobrevive
+        dir = Files.createTempDirectory("ledger");
+        prepararCheckpoint(dir);
+        lanzarHijo(ESC_DIFUSO, dir);
+        try (TicketLedger ledger = new TicketLedger(dir)) {
+            TicketStore store = ledger.getStore();
+            comprobar(store.getFilas() == NUM_TICKETS + NUM_ALTAS_DIFUSO,
+                    "Filas recuperadas: " + store.getFilas());
+            for (int fila = 0; fila < store.getFilas(); fila++) {
+                comprobar(store.obtener(fila) == esperadoDifuso(fila), "Fila perdida: " + fila);
+            }
+        }
+        comprobar(!Files.exists(dir.resolve(TicketLedger.FICHERO_WAL_ANTERIOR)),
+                "WAL anterior no borrado tras la recuperación");
+        borrar(dir);
+
+        System.out.println("Recuperación del ledger - OK");
+    }
+
+    // Ledger con NUM_TICKETS en el checkpoint > Contenido del fichero
+    private static byte[] prepararCheckpoint(Path dir) throws IOException {
+        try (TicketLedger ledger = new TicketLedger(dir)) {
+            for (int fila = 0; fila < NUM_TICKETS; fila++) {
+                ledger.anyadir(generar(fila));
+            }
+            ledger.confirmar();
+            ledger.checkpoint();
+        }
+        return Files.readAllBytes(dir.resolve(TicketLedger.FICHERO_ALMACEN));
+    }
+
+    // Proceso hijo - Cambios + Parada abrupta (Sin close ni hooks)
+    private static void ejecutarHijo(String escenario, Path dir) throws IOException {
+        if (escenario.equals(ESC_DIFUSO)) {
+            ejecutarDifuso(dir);
+        }
+        TicketLedger ledger = new TicketLedger(dir);
+        if (escenario.equals(ESC_SIN_CONFIRMAR)) {
+            ledger.modificar(FILA_SIN_CONFIRMAR, cambiar(FILA_SIN_CONFIRMAR));
+            ledger.anyadir(generar(NUM_TICKETS));
+        } else {
+            ledger.modificar(FILA_CONFIRMADA, cambiar(FILA_CONFIRMADA));
+            ledger.anyadir(generar(NUM_TICKETS));
+            ledger.confirmar();
+        }
+        Runtime.getRuntime().halt(0);
+    }
+
+    // Proceso hijo - Altas y cambios confirmados por lotes con checkpoints en segundo plano
+    private static void ejecutarDifuso(Path dir) throws IOException {
+        TicketLedger ledger = new TicketLedger(dir, MAX_WAL_DIFUSO);
+        for (int i = 0; i < NUM_ALTAS_DIFUSO; i++) {
+            ledger.anyadir(generar(NUM_TICKETS + i));
+            if (i % 4 == 0) {
+                int fila = i / 4;
+                ledger.modificar(fila, cambiar(fila));
+            }
+            if (i % 1000 == 999) {
+                ledger.confirmar();
+            }
+        }
+        ledger.confirmar();
+        Runtime.getRuntime().halt(0);
+    }
+
+    // Contenido esperado tras el escenario difuso
+    private static long esperadoDifuso(int fila) {
+        return fila < NUM_ALTAS_DIFUSO / 4 ? cambiar(fila) : generar(fila);
+    }
+
+    // Proceso hijo con el mismo classpath
+    private static void lanzarHijo(String escenario, Path dir) throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process hijo = new ProcessBuilder(java,
+                "-cp", System.getProperty("java.class.path"),
+                PruebaRecuperacionLedger.class.getName(), escenario, dir.toString())
+                .inheritIO()
+                .start();
+        comprobar(hijo.waitFor() == 0, "Proceso hijo: " + hijo.exitValue());
+    }
+
+    // Fila > Ticket determinista
+    private static long generar(int fila) {
+        return TicketCodec.empaquetar(fila % 100_000, fila % 161, fila % 10, 17_000 + fila % 50, 20);
+    }
+
+    // Fila > Ticket cambiado (Todas las columnas distintas)
+    private static long cambiar(int fila) {
+        return TicketCodec.empaquetar((fila + 1) % 100_000, (fila + 1) % 161, (fila + 1) % 10,
+                17_100 + fila % 50, 30);
+    }
+
+    private static void comprobar(boolean condicion, String mensaje) {
+        if (!condicion) {
+            throw new AssertionError(mensaje);
+        }
+    }
+
+    private static void borrar(Path dir) throws IOException {
+        for (String nombre : new String[]{
+            TicketLedger.FICHERO_ALMACEN, TicketLedger.FICHERO_WAL, TicketLedger.FICHERO_SOMBRA,
+            TicketLedger.FICHERO_WAL_ANTERIOR}) {
+            Files.deleteIfExists(dir.resolve(nombre));
+        }
+        Files.deleteIfExists(dir);
+    }
+}